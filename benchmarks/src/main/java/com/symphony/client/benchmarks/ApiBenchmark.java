@@ -0,0 +1,97 @@
+package com.symphony.client.benchmarks;
+
+import com.symphony.client.Api;
+import com.symphony.client.Client;
+import com.symphony.client.JCurlTransport;
+import com.symphony.client.PooledTransport;
+import com.symphony.client.Transport;
+import com.symphony.client.presence.PresenceBatch;
+import com.symphony.client.presence.PresenceCodec;
+import com.symphony.client.presence.PresenceStatus;
+import com.symphony.client.stub.StubPod;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full client round trips (request building, transport, response processing and decoding) against an in-process
+ * {@link StubPod}, for each transport. {@code feedSize} seeded users make up the bulk presence page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiBenchmark {
+  @Param({"pooled", "jcurl"})
+  private String transport;
+
+  @Param({"100"})
+  private int feedSize;
+
+  private StubPod stubPod;
+  private Client client;
+  private Api api;
+  private String userId;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    stubPod = new StubPod().start();
+    stubPod.seed(StubPod.USER_ID + 1, feedSize, PresenceStatus.AVAILABLE);
+    userId = String.valueOf(StubPod.USER_ID + 1);
+
+    Transport selected = "jcurl".equals(transport) ? new JCurlTransport() : new PooledTransport();
+    String url = stubPod.getUrl();
+    client = new Client(url, url, url, url, null, null, selected);
+    client.auth();
+    api = client.getApi();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    stubPod.close();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    private final PresenceBatch batch = new PresenceBatch();
+  }
+
+  @Benchmark
+  public Object setPresence() throws Exception {
+    return PresenceCodec.decode(api.setPresence(userId, "AVAILABLE").getOutput());
+  }
+
+  @Benchmark
+  public PresenceBatch getAllPresence(ThreadState state) throws Exception {
+    state.batch.clear();
+    PresenceCodec.decodeAll(api.getAllPresence(StubPod.USER_ID, feedSize).getOutput(), state.batch);
+    return state.batch;
+  }
+
+  @Benchmark
+  public Object doGet() throws Exception {
+    return client.doGet(stubPod.getUrl() + "/pod/v2/sessioninfo", Collections.singletonMap("limit", "100"));
+  }
+
+  @Benchmark
+  public Object doPost() throws Exception {
+    return client.doPost(stubPod.getUrl() + "/pod/v3/user/presence",
+        "{\"userId\":" + userId + ",\"category\":\"AVAILABLE\"}");
+  }
+}
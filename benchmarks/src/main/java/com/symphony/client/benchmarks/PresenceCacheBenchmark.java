@@ -0,0 +1,65 @@
+package com.symphony.client.benchmarks;
+
+import com.symphony.client.presence.Presence;
+import com.symphony.client.presence.PresenceCache;
+import com.symphony.client.presence.PresenceStatus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Presence cache lookups under concurrent readers, with a single writer applying feed updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PresenceCacheBenchmark {
+  private static final long FIRST_USER_ID = 9414568312885L;
+
+  @Param({"100000"})
+  private int users;
+
+  private PresenceCache cache;
+
+  @Setup
+  public void setUp() {
+    cache = new PresenceCache(users, PresenceCache.DEFAULT_TTL_MILLIS);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < users; i++) {
+      cache.put(new Presence(FIRST_USER_ID + i, PresenceStatus.AVAILABLE, now));
+    }
+  }
+
+  @Benchmark
+  public Presence getHit() {
+    return cache.get(FIRST_USER_ID + ThreadLocalRandom.current().nextInt(users));
+  }
+
+  @Benchmark
+  public Presence getMiss() {
+    return cache.get(FIRST_USER_ID - 1 - ThreadLocalRandom.current().nextInt(users));
+  }
+
+  @Benchmark
+  public void put() {
+    long userId = FIRST_USER_ID + ThreadLocalRandom.current().nextInt(users);
+    cache.put(new Presence(userId, PresenceStatus.AWAY, System.currentTimeMillis()));
+  }
+}
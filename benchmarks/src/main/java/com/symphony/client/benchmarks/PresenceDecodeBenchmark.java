@@ -0,0 +1,95 @@
+package com.symphony.client.benchmarks;
+
+import com.symphony.client.presence.Presence;
+import com.symphony.client.presence.PresenceBatch;
+import com.symphony.client.presence.PresenceCodec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a single presence and of feed responses: the JsonNode tree path against the streaming codec.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresenceDecodeBenchmark {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Param({"10", "1000"})
+  private int feedSize;
+
+  private String presence;
+  private String feed;
+  private PresenceBatch batch;
+
+  @Setup
+  public void setUp() {
+    presence = presenceJson(9414568312885L);
+    feed = feedJson(feedSize);
+    batch = new PresenceBatch(feedSize);
+  }
+
+  @Benchmark
+  public Presence presenceFromTree() throws IOException {
+    return new Presence(MAPPER.readTree(presence));
+  }
+
+  @Benchmark
+  public Presence presenceStreaming() throws IOException {
+    return PresenceCodec.decode(presence);
+  }
+
+  @Benchmark
+  public void feedFromTree(Blackhole blackhole) throws IOException {
+    for (JsonNode node : MAPPER.readTree(feed)) {
+      blackhole.consume(new Presence(node));
+    }
+  }
+
+  @Benchmark
+  public List<Presence> feedStreaming() throws IOException {
+    return PresenceCodec.decodeAll(feed);
+  }
+
+  @Benchmark
+  public PresenceBatch feedStreamingBatch() throws IOException {
+    batch.clear();
+    PresenceCodec.decodeAll(feed, batch);
+    return batch;
+  }
+
+  private static String presenceJson(long userId) {
+    return "{\"category\":\"AVAILABLE\",\"userId\":" + userId + ",\"timestamp\":1509530454455}";
+  }
+
+  private static String feedJson(int size) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(presenceJson(9414568312885L + i));
+    }
+    return sb.append(']').toString();
+  }
+}
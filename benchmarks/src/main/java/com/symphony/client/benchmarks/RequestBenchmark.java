@@ -0,0 +1,102 @@
+package com.symphony.client.benchmarks;
+
+import com.symphony.client.Client;
+import com.symphony.client.Request;
+import com.symphony.client.RequestTemplate;
+
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call client overhead that does not touch the network: request construction, CSRF token generation and request
+ * body serialization.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String URL = "https://pod.example.com/pod/v3/user/presence";
+  private static final String USER_ID = "9414568312885";
+  private static final String STATUS = "AVAILABLE";
+
+  private Client client;
+
+  @Setup
+  public void setUp() {
+    client = new Client("https://pod.example.com", "https://agent.example.com", "https://pod.example.com",
+        "https://km.example.com", null, null);
+    client.setSessionToken("0123456789abcdef0123456789abcdef");
+    client.setKeyManagerToken("fedcba9876543210fedcba9876543210");
+  }
+
+  @Benchmark
+  public String csrfToken() {
+    return RequestTemplate.csrfToken();
+  }
+
+  @Benchmark
+  public Request buildFromFullTemplate() {
+    return client.getRequestTemplate().full().method(JCurl.HttpMethod.POST).url(URL).data("{}").build();
+  }
+
+  @Benchmark
+  public Request buildPost() {
+    return client.buildPost(URL).data("{\"userId\":\"" + USER_ID + "\",\"category\":\"" + STATUS + "\"}").build();
+  }
+
+  @Benchmark
+  public Request buildFromTemplate() {
+    return client.getRequestTemplate().session().method(JCurl.HttpMethod.GET).url(URL).build();
+  }
+
+  @Benchmark
+  public Request buildGet() {
+    return Request.builder()
+        .method(JCurl.HttpMethod.GET)
+        .header("sessionToken", client.getSessionToken())
+        .url(URL)
+        .build();
+  }
+
+  @Benchmark
+  public String presenceBodyTree() throws IOException {
+    ObjectNode node = JsonNodeFactory.instance.objectNode();
+    node.put("userId", USER_ID);
+    node.put("category", STATUS);
+    return MAPPER.writeValueAsString(node);
+  }
+
+  @Benchmark
+  public String presenceBodyStreaming() throws IOException {
+    StringWriter data = new StringWriter(64);
+    try (JsonGenerator generator = MAPPER.getFactory().createGenerator(data)) {
+      generator.writeStartObject();
+      generator.writeStringField("userId", USER_ID);
+      generator.writeStringField("category", STATUS);
+      generator.writeEndObject();
+    }
+    return data.toString();
+  }
+}
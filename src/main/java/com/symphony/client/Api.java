@@ -1,20 +1,18 @@
 package com.symphony.client;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.symphonyoss.symphony.jcurl.JCurl;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.io.StringWriter;
 import java.security.cert.CertificateParsingException;
 
 @Slf4j
 public class Api {
-  private static final Logger LOG = LoggerFactory.getLogger(Api.class);
   private static final ObjectMapper MAPPER = new ObjectMapper();
   private static final String SESSIONINFO = "/pod/v2/sessioninfo";
   private static final String USER_CREATE = "/pod/v1/admin/user/create";
@@ -36,7 +34,8 @@ public class Api {
   }
 
   public JCurl.Response sessionAuth() throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    Request request = Request.builder()
+        .endpoint("sessionAuth")
         .method(JCurl.HttpMethod.POST)
         .keystore(client.getCert())
         .storepass(client.getPassword())
@@ -45,16 +44,12 @@ public class Api {
         .url(client.getSessionAuthUrl() + SESSIONAUTH)
         .build();
 
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect();
-    JCurl.Response response = jcurl.processResponse(connection);
-
-    return response;
+    return client.execute(request);
   }
 
   public JCurl.Response keyAuth() throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    Request request = Request.builder()
+        .endpoint("keyAuth")
         .method(JCurl.HttpMethod.POST)
         .keystore(client.getCert())
         .storepass(client.getPassword())
@@ -63,28 +58,23 @@ public class Api {
         .url(client.getKeyAuthUrl() + KEYAUTH)
         .build();
 
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect();
-    JCurl.Response response = jcurl.processResponse(connection);
-
-    return response;
+    return client.execute(request);
   }
 
   public JCurl.Response sessionInfo() throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    return sessionInfo(client.getSessionToken());
+  }
+
+  public JCurl.Response sessionInfo(String sessionToken) throws IOException, CertificateParsingException {
+    Request request = Request.builder()
+        .endpoint("sessionInfo")
         .method(JCurl.HttpMethod.GET)
-        .header(SESSION_TOKEN, client.getSessionToken())
+        .header(SESSION_TOKEN, sessionToken)
         .extract("uid", "id")
         .url(client.getPodUrl() + SESSIONINFO)
         .build();
 
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect();
-    JCurl.Response response = jcurl.processResponse(connection);
-
-    return response;
+    return client.execute(request);
   }
 
   public JCurl.Response createUser(String firstName, String lastName, String userName, String displayName, String email,
@@ -113,134 +103,108 @@ public class Api {
       data.withArray("roles").add("INDIVIDUAL");
     }
 
-    JCurl jcurl = JCurl.builder()
-        .method(JCurl.HttpMethod.GET)
-        .header(SESSION_TOKEN, client.getSessionToken())
-        .data(MAPPER.writeValueAsString(data))
+    String body = MAPPER.writeValueAsString(data);
+
+    return client.execute(() -> client.getRequestTemplate().session()
+        .endpoint("createUser")
+        .idempotent(false)
+        .method(JCurl.HttpMethod.POST)
+        .data(body)
         .extract("uid", "userSystemInfo.id")
         .url(client.getPodUrl() + USER_CREATE)
-        .build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect();
-    return jcurl.processResponse(connection);
+        .build());
   }
 
   public JCurl.Response getUserInfoById(String userId, Boolean local) throws IOException, CertificateParsingException {
-    JCurl.Builder builder = JCurl.builder()
-        .method(JCurl.HttpMethod.GET)
-        .header(SESSION_TOKEN, client.getSessionToken())
-        .query("uid", userId)
-        .url(client.getPodUrl() + String.format(USER_INFO, userId));
-
-    if (local != null) {
-      builder.query("local", String.valueOf(local));
-    }
-
-    JCurl jcurl = builder.build();
-
-    LOG.debug(jcurl.toString());
+    return client.execute(() -> {
+      Request.Builder builder = client.getRequestTemplate().session()
+          .endpoint("getUserInfoById")
+          .method(JCurl.HttpMethod.GET)
+          .query("uid", userId)
+          .url(client.getPodUrl() + String.format(USER_INFO, userId));
+
+      if (local != null) {
+        builder.query("local", String.valueOf(local));
+      }
+
+      return builder.build();
+    });
+  }
 
-    HttpURLConnection connection = jcurl.connect();
-    return jcurl.processResponse(connection);
+  public JCurl.Response getUserInfoByUsername(String userName) throws IOException, CertificateParsingException {
+    return client.execute(() -> client.getRequestTemplate().session()
+        .endpoint("getUserInfoByUsername")
+        .method(JCurl.HttpMethod.GET)
+        .query("username", userName)
+        .extract("uid", "id")
+        .url(client.getPodUrl() + USER_INFO)
+        .build());
   }
 
   public JCurl.Response getAllPresence(long lastUserId, int limit) throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    return client.execute(() -> client.getRequestTemplate().session()
+        .endpoint("getAllPresence")
         .method(JCurl.HttpMethod.GET)
-        .header(SESSION_TOKEN, client.getSessionToken())
         .extract("category")
-        .build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect(client.getPodUrl() + USERS_PRESENCE
-        + "?lastUserId=" + lastUserId + "&limit=" + limit);
-    JCurl.Response response = jcurl.processResponse(connection);
-    return response;
+        .url(client.getPodUrl() + USERS_PRESENCE + "?lastUserId=" + lastUserId + "&limit=" + limit)
+        .build());
   }
 
 
   public JCurl.Response getPresence(String userId) throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    return client.execute(() -> client.getRequestTemplate().session()
+        .endpoint("getPresence")
         .method(JCurl.HttpMethod.GET)
-        .header(SESSION_TOKEN, client.getSessionToken())
         .extract("status", "category")
-        .build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect(client.getPodUrl() + String.format(USER_UID_PRESENCE, userId));
-    JCurl.Response response = jcurl.processResponse(connection);
-    return response;
+        .url(client.getPodUrl() + String.format(USER_UID_PRESENCE, userId))
+        .build());
   }
 
   public JCurl.Response setOwnPresence(String status) throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    return client.execute(() -> client.getRequestTemplate().session()
+        .endpoint("setOwnPresence")
+        .idempotent(true)
         .method(JCurl.HttpMethod.POST)
-        .header(SESSION_TOKEN, client.getSessionToken())
         .data("{\"category\": \"" + status + "\"}")
         .extract("status", "category")
-        .build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect(client.getPodUrl() + USER_PRESENCE);
-    JCurl.Response response = jcurl.processResponse(connection);
-
-    LOG.debug(jcurl.toString());
-
-    return response;
+        .url(client.getPodUrl() + USER_PRESENCE)
+        .build());
   }
 
   public JCurl.Response setPresence(String userId, String status) throws IOException, CertificateParsingException {
-    ObjectNode data = new ObjectNode(JsonNodeFactory.instance);
-    data.put("userId", userId);
-    data.put("category", status);
+    StringWriter data = new StringWriter(64);
+    try (JsonGenerator generator = MAPPER.getFactory().createGenerator(data)) {
+      generator.writeStartObject();
+      generator.writeStringField("userId", userId);
+      generator.writeStringField("category", status);
+      generator.writeEndObject();
+    }
 
-    JCurl jcurl = JCurl.builder()
+    return client.execute(() -> client.getRequestTemplate().session()
+        .endpoint("setPresence")
+        .idempotent(true)
         .method(JCurl.HttpMethod.POST)
-        .header(SESSION_TOKEN, client.getSessionToken())
-        .data(MAPPER.writeValueAsString(data))
+        .data(data.toString())
         .extract("status", "category")
-        .build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect(client.getPodUrl() + V3_USER_PRESENCE);
-    JCurl.Response response = jcurl.processResponse(connection);
-    return response;
+        .url(client.getPodUrl() + V3_USER_PRESENCE)
+        .build());
   }
 
   public JCurl.Response createPresenceFeed() throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    return client.execute(() -> client.getRequestTemplate().keyManager()
+        .endpoint("createPresenceFeed")
         .method(JCurl.HttpMethod.POST)
-        .header(SESSION_TOKEN, client.getSessionToken())
-        .header("keyManagerToken", client.getKeyManagerToken())
         .extract("id", "id")
-        .build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect(client.getPodUrl() + PRESENCE_FEED_CREATE);
-    JCurl.Response response = jcurl.processResponse(connection);
-    return response;
+        .url(client.getPodUrl() + PRESENCE_FEED_CREATE)
+        .build());
   }
 
   public JCurl.Response readPresenceFeed(String feedId) throws IOException, CertificateParsingException {
-    JCurl jcurl = JCurl.builder()
+    return client.execute(() -> client.getRequestTemplate().keyManager()
+        .endpoint("readPresenceFeed")
         .method(JCurl.HttpMethod.GET)
-        .header(SESSION_TOKEN, client.getSessionToken())
-        .header("keyManagerToken", client.getKeyManagerToken())
-        .build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect(String.format(PRESENCE_FEED_READ, client.getPodUrl(), feedId));
-    JCurl.Response response = jcurl.processResponse(connection);
-
-    return response;
+        .url(String.format(PRESENCE_FEED_READ, client.getPodUrl(), feedId))
+        .build());
   }
 
 }
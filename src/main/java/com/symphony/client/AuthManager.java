@@ -0,0 +1,248 @@
+package com.symphony.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.cert.CertificateParsingException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the session and key manager tokens of a {@link Client}.
+ *
+ * <p>Tokens are published as one immutable {@link Tokens} instance, so any thread sees a consistent pair. Logging in
+ * runs session auth and key manager auth in parallel. When a call is rejected with a 401, {@link #refresh(Tokens)}
+ * re-authenticates once no matter how many threads report the same stale tokens at the same time. Tokens are also
+ * renewed in the background every {@code refreshIntervalMillis} so that they are normally replaced before they
+ * expire; a failed background refresh is retried after {@code RETRY_DELAY_MILLIS}.
+ *
+ * <p>The keystore is only parsed once per transport: {@link PooledTransport} caches the socket factory built from it.
+ */
+@Slf4j
+public class AuthManager implements Closeable {
+  public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+  private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private final Client client;
+  private final long refreshIntervalMillis;
+  private final ScheduledExecutorService scheduler;
+
+  private volatile Tokens tokens = Tokens.NONE;
+  private CompletableFuture<Tokens> inFlight;
+  private ScheduledFuture<?> scheduledRefresh;
+
+  public AuthManager(Client client) {
+    this(client, DEFAULT_REFRESH_INTERVAL_MILLIS);
+  }
+
+  /**
+   * @param refreshIntervalMillis how long tokens are used before being renewed in the background, or 0 to only renew
+   *     them when a call is rejected
+   */
+  public AuthManager(Client client, long refreshIntervalMillis) {
+    this.client = client;
+    this.refreshIntervalMillis = refreshIntervalMillis;
+
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(2, runnable -> {
+      Thread thread = new Thread(runnable, "auth-manager");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    this.scheduler = scheduler;
+  }
+
+  public Tokens getTokens() {
+    return tokens;
+  }
+
+  /**
+   * Replaces the current tokens, for callers that obtained them elsewhere.
+   */
+  public void setTokens(Tokens tokens) {
+    this.tokens = tokens;
+  }
+
+  /**
+   * Authenticates unconditionally and returns the new tokens.
+   */
+  public Tokens login() throws IOException, CertificateParsingException {
+    return refresh(tokens);
+  }
+
+  /**
+   * Re-authenticates if {@code stale} are still the current tokens and returns the tokens to retry with. Concurrent
+   * callers share a single authentication.
+   */
+  public Tokens refresh(Tokens stale) throws IOException, CertificateParsingException {
+    CompletableFuture<Tokens> flight;
+    boolean owner = false;
+    synchronized (this) {
+      if (tokens != stale) {
+        return tokens;
+      }
+      if (inFlight == null) {
+        inFlight = new CompletableFuture<>();
+        owner = true;
+      }
+      flight = inFlight;
+    }
+
+    if (owner) {
+      try {
+        Tokens fresh = authenticate();
+        synchronized (this) {
+          tokens = fresh;
+          inFlight = null;
+        }
+        flight.complete(fresh);
+        scheduleRefresh(refreshIntervalMillis);
+      } catch (Throwable t) {
+        synchronized (this) {
+          inFlight = null;
+        }
+        flight.completeExceptionally(t);
+        throw t;
+      }
+    }
+
+    return await(flight);
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  private Tokens authenticate() throws IOException, CertificateParsingException {
+    Api api = client.getApi();
+    CompletableFuture<String> keyManagerToken = CompletableFuture.supplyAsync(() -> {
+      try {
+        return checked(api.keyAuth(), "keyAuth").getTag("kmtoken");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } catch (CertificateParsingException e) {
+        throw new CompletionException(e);
+      }
+    }, scheduler);
+
+    String sessionToken = checked(api.sessionAuth(), "sessionAuth").getTag("skey");
+    String userId = checked(api.sessionInfo(sessionToken), "sessionInfo").getTag("uid");
+    Tokens fresh = new Tokens(sessionToken, await(keyManagerToken), userId, System.currentTimeMillis());
+
+    log.info("Authenticated as user {}", userId);
+    return fresh;
+  }
+
+  private synchronized void scheduleRefresh(long delayMillis) {
+    if (delayMillis <= 0 || scheduler.isShutdown()) {
+      return;
+    }
+    if (scheduledRefresh != null) {
+      scheduledRefresh.cancel(false);
+    }
+    scheduledRefresh = scheduler.schedule(this::refreshInBackground, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void refreshInBackground() {
+    try {
+      refresh(tokens);
+    } catch (IOException | CertificateParsingException | RuntimeException e) {
+      log.warn("Background token refresh failed, retrying in {} ms", RETRY_DELAY_MILLIS, e);
+      scheduleRefresh(RETRY_DELAY_MILLIS);
+    }
+  }
+
+  private static JCurl.Response checked(JCurl.Response response, String call) throws IOException {
+    if (response.getResponseCode() != 200) {
+      throw new IOException(call + " failed with HTTP " + response.getResponseCode());
+    }
+    return response;
+  }
+
+  private static <T> T await(CompletableFuture<T> future) throws IOException, CertificateParsingException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while authenticating", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof CertificateParsingException) {
+        throw (CertificateParsingException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Tokens obtained by one authentication.
+   */
+  public static final class Tokens {
+    static final Tokens NONE = new Tokens(null, null, null, 0);
+
+    private final String sessionToken;
+    private final String keyManagerToken;
+    private final String userId;
+    private final long obtainedAtMillis;
+
+    public Tokens(String sessionToken, String keyManagerToken, String userId, long obtainedAtMillis) {
+      this.sessionToken = sessionToken;
+      this.keyManagerToken = keyManagerToken;
+      this.userId = userId;
+      this.obtainedAtMillis = obtainedAtMillis;
+    }
+
+    public String getSessionToken() {
+      return sessionToken;
+    }
+
+    public String getKeyManagerToken() {
+      return keyManagerToken;
+    }
+
+    public String getUserId() {
+      return userId;
+    }
+
+    public long getObtainedAtMillis() {
+      return obtainedAtMillis;
+    }
+
+    public Tokens withSessionToken(String sessionToken) {
+      return new Tokens(sessionToken, keyManagerToken, userId, obtainedAtMillis);
+    }
+
+    public Tokens withKeyManagerToken(String keyManagerToken) {
+      return new Tokens(sessionToken, keyManagerToken, userId, obtainedAtMillis);
+    }
+
+    public Tokens withUserId(String userId) {
+      return new Tokens(sessionToken, keyManagerToken, userId, obtainedAtMillis);
+    }
+  }
+}
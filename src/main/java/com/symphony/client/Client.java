@@ -1,5 +1,8 @@
 package com.symphony.client;
 
+import com.symphony.client.metrics.ClientMetrics;
+import com.symphony.client.metrics.EndpointMetrics;
+
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,18 +10,19 @@ import org.symphonyoss.symphony.jcurl.JCurl;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.nio.file.Paths;
 import java.security.cert.CertificateParsingException;
 import java.util.Map;
 import java.util.Properties;
-import java.util.UUID;
+import java.util.function.Supplier;
 
+/**
+ * Entry point for calls to the pod, agent and authentication endpoints. Safe to share between threads: tokens live in
+ * the {@link AuthManager} and the headers derived from them in an immutable {@link RequestTemplate}.
+ */
 @Slf4j
 public class Client {
   private static final Logger LOG = LoggerFactory.getLogger(Client.class);
-  private static final String SESSION_TOKEN = "sessionToken";
-  private static final String KEY_MANAGER_TOKEN = "keyManagerToken";
 
   private final String password;
   private final String cert;
@@ -26,20 +30,28 @@ public class Client {
   private final String agentUrl;
   private final String sessionAuthUrl;
   private final String keyAuthUrl;
-  private String sessionToken;
-  private String keyManagerToken;
-  private String appToken;
-  private String userId;
-  private Api api;
+  private final Transport transport;
+  private final ClientMetrics metrics = new ClientMetrics();
+  private final AuthManager authManager;
+  private final Api api;
+  private volatile RequestTemplate requestTemplate;
+  private volatile String appToken;
 
   public Client(String podUrl, String agentUrl, String sessionAuthUrl, String keyAuthUrl, String cert, String password) {
+    this(podUrl, agentUrl, sessionAuthUrl, keyAuthUrl, cert, password, new PooledTransport());
+  }
+
+  public Client(String podUrl, String agentUrl, String sessionAuthUrl, String keyAuthUrl, String cert, String password,
+      Transport transport) {
     this.podUrl = podUrl;
     this.agentUrl = agentUrl;
     this.sessionAuthUrl = sessionAuthUrl;
     this.keyAuthUrl = keyAuthUrl;
     this.cert = cert;
     this.password = password;
+    this.transport = transport;
     this.api = new Api(this);
+    this.authManager = new AuthManager(this);
   }
 
   public static Client fromConfig(String configPath, String certName, String certPassword) throws IOException {
@@ -58,125 +70,117 @@ public class Client {
   }
 
   public void auth() throws IOException, CertificateParsingException {
-    this.sessionToken = api.sessionAuth().getTag("skey");
-    this.keyManagerToken = api.keyAuth().getTag("kmtoken");
-    this.userId = api.sessionInfo().getTag("uid");
+    authManager.login();
   }
 
   public JCurl.Response doGet(String url, Map<String, String> query) throws IOException, CertificateParsingException {
-    JCurl.Builder builder = JCurl.builder()
-        .method(JCurl.HttpMethod.GET)
-        .cookie("skey", sessionToken)
-        .cookie("kmtoken", keyManagerToken)
-        .header(SESSION_TOKEN, sessionToken)
-        .header(KEY_MANAGER_TOKEN, keyManagerToken)
-        .header("x-symphony-csrf-token", UUID.randomUUID().toString())
-        .url(url);
-
-    if (query != null) {
-      for (Map.Entry<String, String> entry : query.entrySet()) {
-        builder.query(entry.getKey(), entry.getValue());
+    return execute(() -> {
+      Request.Builder builder = getRequestTemplate().full()
+          .method(JCurl.HttpMethod.GET)
+          .url(url);
+
+      if (query != null) {
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+          builder.query(entry.getKey(), entry.getValue());
+        }
       }
-    }
 
-    JCurl jcurl = builder.build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect();
-    JCurl.Response response = jcurl.processResponse(connection);
-
-    return response;
+      return builder.build();
+    });
   }
 
   public JCurl.Response doPost(String url, Map<String, String> params) throws IOException, CertificateParsingException {
-    JCurl.Builder builder = JCurl.builder()
-        .method(JCurl.HttpMethod.POST)
-        .cookie("skey", sessionToken)
-        .cookie("kmtoken", keyManagerToken)
-        .header(SESSION_TOKEN, sessionToken)
-        .header(KEY_MANAGER_TOKEN, keyManagerToken)
-        .header("Content-Type", "application/x-www-form-urlencoded")
-        .header("x-symphony-csrf-token", UUID.randomUUID().toString())
-        .expect(400)
-        .url(url);
-
-    if (params != null) {
-      for (Map.Entry<String, String> entry : params.entrySet()) {
-        builder.form(entry.getKey(), entry.getValue());
+    return execute(() -> {
+      Request.Builder builder = getRequestTemplate().full()
+          .method(JCurl.HttpMethod.POST)
+          .header("Content-Type", "application/x-www-form-urlencoded")
+          .expect(400)
+          .url(url);
+
+      if (params != null) {
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+          builder.form(entry.getKey(), entry.getValue());
+        }
       }
-    }
-
-    JCurl jcurl = builder.build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect();
-    JCurl.Response response = jcurl.processResponse(connection);
 
-    return response;
+      return builder.build();
+    });
   }
 
   public JCurl.Response doPost(String url, String data) throws IOException, CertificateParsingException {
-    JCurl.Builder builder = JCurl.builder()
-        .method(JCurl.HttpMethod.POST)
-        .cookie("skey", sessionToken)
-        .cookie("kmtoken", keyManagerToken)
-        .header(SESSION_TOKEN, sessionToken)
-        .header(KEY_MANAGER_TOKEN, keyManagerToken)
-        .header("Content-Type", "application/json")
-        .header("x-symphony-csrf-token", UUID.randomUUID().toString())
-        .expect(400)
-        .url(url);
-
-    if (data != null) {
-      builder.data(data);
-    }
-
-    JCurl jcurl = builder.build();
-
-    LOG.debug(jcurl.toString());
-
-    HttpURLConnection connection = jcurl.connect();
-    JCurl.Response response = jcurl.processResponse(connection);
+    return execute(() -> {
+      Request.Builder builder = getRequestTemplate().full()
+          .method(JCurl.HttpMethod.POST)
+          .header("Content-Type", "application/json")
+          .expect(400)
+          .url(url);
+
+      if (data != null) {
+        builder.data(data);
+      }
 
-    return response;
+      return builder.build();
+    });
   }
 
-  public JCurl.Builder buildPost(String url) {
-    JCurl.Builder builder = JCurl.builder()
+  public Request.Builder buildPost(String url) {
+    Request.Builder builder = getRequestTemplate().full()
         .method(JCurl.HttpMethod.POST)
-        .cookie("skey", sessionToken)
-        .cookie("kmtoken", keyManagerToken)
-        .header(SESSION_TOKEN, sessionToken)
-        .header(KEY_MANAGER_TOKEN, keyManagerToken)
-        .header("x-symphony-csrf-token", UUID.randomUUID().toString())
         .url(url);
 
     return builder;
   }
 
-  public JCurl.Response process(JCurl.Builder builder) throws IOException, CertificateParsingException {
-    JCurl jcurl = builder.build();
+  public JCurl.Response process(Request.Builder builder) throws IOException, CertificateParsingException {
+    return execute(builder.build());
+  }
 
-    LOG.debug(jcurl.toString());
+  /**
+   * Builds and executes a request that carries the session tokens. If the pod rejects the tokens with a 401, they are
+   * refreshed through the {@link AuthManager} and the request is rebuilt and sent once more.
+   */
+  public JCurl.Response execute(Supplier<Request> factory) throws IOException, CertificateParsingException {
+    AuthManager.Tokens tokens = authManager.getTokens();
+    JCurl.Response response = execute(factory.get());
+    if (response.getResponseCode() == 401 && tokens.getSessionToken() != null) {
+      LOG.debug("Tokens rejected, re-authenticating");
+      authManager.refresh(tokens);
+      response = execute(factory.get());
+    }
+    return response;
+  }
 
-    HttpURLConnection connection = jcurl.connect();
-    JCurl.Response response = jcurl.processResponse(connection);
+  public JCurl.Response execute(Request request) throws IOException, CertificateParsingException {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("{}", request);
+    }
+
+    EndpointMetrics endpoint = metrics.endpoint(request.getEndpoint());
+    long requestBytes = request.getBodyBytes() == null ? 0 : request.getBodyBytes().length;
+    long start = endpoint.start();
+    JCurl.Response response;
+    try {
+      response = transport.execute(request);
+    } catch (IOException | CertificateParsingException | RuntimeException e) {
+      endpoint.failure(start, requestBytes);
+      throw e;
+    }
+    String output = response.getOutput();
+    endpoint.success(start, response.getResponseCode(), requestBytes, output == null ? 0 : output.length());
 
     return response;
   }
 
   public String getSessionToken() {
-    return sessionToken;
+    return authManager.getTokens().getSessionToken();
   }
 
   public String getKeyManagerToken() {
-    return keyManagerToken;
+    return authManager.getTokens().getKeyManagerToken();
   }
 
   public String getUserId() {
-    return userId;
+    return authManager.getTokens().getUserId();
   }
 
   public String getAppToken() {
@@ -207,29 +211,53 @@ public class Client {
     return keyAuthUrl;
   }
 
+  public Transport getTransport() {
+    return transport;
+  }
+
+  public ClientMetrics getMetrics() {
+    return metrics;
+  }
+
   public Api getApi() {
     return api;
   }
 
+  public AuthManager getAuthManager() {
+    return authManager;
+  }
+
+  /**
+   * Returns the headers for the current tokens. The template is rebuilt only when the tokens change.
+   */
+  public RequestTemplate getRequestTemplate() {
+    AuthManager.Tokens tokens = authManager.getTokens();
+    RequestTemplate template = requestTemplate;
+    if (template == null || template.getTokens() != tokens) {
+      template = new RequestTemplate(tokens);
+      requestTemplate = template;
+    }
+    return template;
+  }
+
   public void setAuth(String skey, String kmToken) throws IOException, CertificateParsingException {
-    this.sessionToken = skey;
-    this.keyManagerToken = kmToken;
-    this.userId = api.sessionInfo().getTag("uid");
+    String userId = api.sessionInfo(skey).getTag("uid");
+    authManager.setTokens(new AuthManager.Tokens(skey, kmToken, userId, System.currentTimeMillis()));
   }
 
-  public void setSessionToken(String sessionToken) {
-    this.sessionToken = sessionToken;
+  public synchronized void setSessionToken(String sessionToken) {
+    authManager.setTokens(authManager.getTokens().withSessionToken(sessionToken));
   }
 
-  public void setKeyManagerToken(String keyManagerToken) {
-    this.keyManagerToken = keyManagerToken;
+  public synchronized void setKeyManagerToken(String keyManagerToken) {
+    authManager.setTokens(authManager.getTokens().withKeyManagerToken(keyManagerToken));
   }
 
   public void setAppToken(String appToken) {
     this.appToken = appToken;
   }
 
-  public void setUserId(String userId) {
-    this.userId = userId;
+  public synchronized void setUserId(String userId) {
+    authManager.setTokens(authManager.getTokens().withUserId(userId));
   }
 }
@@ -0,0 +1,28 @@
+package com.symphony.client;
+
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.security.cert.CertificateParsingException;
+
+/**
+ * Lets JCurl open a fresh connection (and redo the TLS setup) for every request.
+ */
+public class JCurlTransport implements Transport {
+  private final RetryAfterHints retryAfterHints = new RetryAfterHints();
+
+  @Override
+  public JCurl.Response execute(Request request) throws IOException, CertificateParsingException {
+    JCurl jcurl = request.toJCurl();
+    HttpURLConnection connection = jcurl.connect();
+    JCurl.Response response = jcurl.processResponse(connection);
+    retryAfterHints.record(connection.getURL(), connection, response.getResponseCode());
+    return response;
+  }
+
+  @Override
+  public long getRetryAfterMillis(Request request) {
+    return retryAfterHints.remainingMillis(request);
+  }
+}
@@ -0,0 +1,169 @@
+package com.symphony.client;
+
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateParsingException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keep-alive transport that reuses TCP connections and TLS sessions across requests.
+ *
+ * <p>Connections are opened directly with one cached {@link SSLSocketFactory} per keystore (the PKCS12 file is
+ * parsed once), which is what allows the JDK's HTTP/1.1 keep-alive cache to hand the same socket back to the next
+ * request for that host. The number of concurrent connections per host is capped by {@code maxConnectionsPerHost};
+ * idle connections are evicted by the JDK after {@code idleTimeoutMillis}. Both settings are applied through the
+ * {@code http.maxConnections} and {@code http.keepAlive.time.server} system properties (unless already set), so the
+ * transport has to be created before the first HTTP connection is made in the JVM.
+ */
+public class PooledTransport implements Transport {
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+
+  private static final String DEFAULT_KEYSTORE = "";
+
+  private final int maxConnectionsPerHost;
+  private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, SSLSocketFactory> socketFactories = new ConcurrentHashMap<>();
+  private final RetryAfterHints retryAfterHints = new RetryAfterHints();
+
+  public PooledTransport() {
+    this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_IDLE_TIMEOUT_MILLIS);
+  }
+
+  public PooledTransport(int maxConnectionsPerHost, long idleTimeoutMillis) {
+    if (maxConnectionsPerHost < 1) {
+      throw new IllegalArgumentException("maxConnectionsPerHost must be positive");
+    }
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+
+    setDefaultProperty("http.keepAlive", "true");
+    setDefaultProperty("http.maxConnections", String.valueOf(maxConnectionsPerHost));
+    setDefaultProperty("http.keepAlive.time.server", String.valueOf(Math.max(1, idleTimeoutMillis / 1000)));
+  }
+
+  @Override
+  public JCurl.Response execute(Request request) throws IOException, CertificateParsingException {
+    URL url = new URL(request.getUrl());
+    Semaphore permits = permitsFor(url);
+
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a connection to " + url.getHost());
+    }
+
+    try {
+      HttpURLConnection connection = open(url, request);
+      JCurl.Response response = request.getResponseProcessor().processResponse(connection);
+      retryAfterHints.record(url, connection, response.getResponseCode());
+      return response;
+    } finally {
+      permits.release();
+    }
+  }
+
+  @Override
+  public long getRetryAfterMillis(Request request) {
+    return retryAfterHints.remainingMillis(request);
+  }
+
+  public int getMaxConnectionsPerHost() {
+    return maxConnectionsPerHost;
+  }
+
+  private HttpURLConnection open(URL url, Request request) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+    if (connection instanceof HttpsURLConnection) {
+      ((HttpsURLConnection) connection).setSSLSocketFactory(socketFactoryFor(request));
+    }
+
+    connection.setRequestMethod(request.getMethod().name());
+    connection.setUseCaches(false);
+
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      connection.setRequestProperty(header.getKey(), header.getValue());
+    }
+
+    byte[] body = request.getBodyBytes();
+    if (body != null) {
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(body.length);
+      try (OutputStream os = connection.getOutputStream()) {
+        os.write(body);
+      }
+    }
+
+    return connection;
+  }
+
+  private Semaphore permitsFor(URL url) {
+    String key = url.getProtocol() + "://" + url.getHost() + ":" + url.getPort();
+    Semaphore permits = hostPermits.get(key);
+    if (permits == null) {
+      Semaphore created = new Semaphore(maxConnectionsPerHost);
+      permits = hostPermits.putIfAbsent(key, created);
+      if (permits == null) {
+        permits = created;
+      }
+    }
+    return permits;
+  }
+
+  private SSLSocketFactory socketFactoryFor(Request request) throws IOException {
+    String key = request.getKeystore() == null ? DEFAULT_KEYSTORE : request.getKeystore();
+    SSLSocketFactory factory = socketFactories.get(key);
+    if (factory == null) {
+      SSLSocketFactory created = request.getKeystore() == null
+          ? HttpsURLConnection.getDefaultSSLSocketFactory()
+          : loadSocketFactory(request);
+      factory = socketFactories.putIfAbsent(key, created);
+      if (factory == null) {
+        factory = created;
+      }
+    }
+    return factory;
+  }
+
+  private static SSLSocketFactory loadSocketFactory(Request request) throws IOException {
+    char[] password = request.getStorepass() == null ? new char[0] : request.getStorepass().toCharArray();
+    String type = request.getStoretype() == null ? KeyStore.getDefaultType() : request.getStoretype();
+
+    try (InputStream is = new FileInputStream(request.getKeystore())) {
+      KeyStore keyStore = KeyStore.getInstance(type);
+      keyStore.load(is, password);
+
+      KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+      kmf.init(keyStore, password);
+
+      SSLContext context = SSLContext.getInstance("TLS");
+      context.init(kmf.getKeyManagers(), null, null);
+      return context.getSocketFactory();
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Unable to load keystore " + request.getKeystore(), e);
+    }
+  }
+
+  private static void setDefaultProperty(String name, String value) {
+    if (System.getProperty(name) == null) {
+      System.setProperty(name, value);
+    }
+  }
+}
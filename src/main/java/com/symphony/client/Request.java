@@ -0,0 +1,442 @@
+package com.symphony.client;
+
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable description of a single HTTP call. A {@link Transport} either opens the connection itself and only
+ * relies on JCurl for response processing and tag extraction ({@link #getResponseProcessor()}), or has JCurl execute
+ * the whole call ({@link #toJCurl()}); either JCurl is only built when a transport asks for it.
+ */
+public class Request {
+  private static final String CONTENT_TYPE = "Content-Type";
+  private static final String COOKIE = "Cookie";
+  private static final String UTF_8 = "UTF-8";
+
+  private final String endpoint;
+  private final JCurl.HttpMethod method;
+  private final String url;
+  private final Map<String, String> headers;
+  private final String body;
+  private final byte[] bodyBytes;
+  private final String keystore;
+  private final String storepass;
+  private final String storetype;
+  private final boolean idempotent;
+  private final List<String[]> extracts;
+  private final List<Integer> expects;
+
+  private Request(Builder builder) {
+    this.method = builder.method;
+    this.url = builder.buildUrl();
+    this.body = builder.buildBody();
+    this.bodyBytes = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+    this.endpoint = builder.endpoint != null ? builder.endpoint : builder.buildPath();
+    this.keystore = builder.keystore;
+    this.storepass = builder.storepass;
+    this.storetype = builder.storetype;
+    this.idempotent = builder.idempotent != null ? builder.idempotent : method != JCurl.HttpMethod.POST;
+    this.extracts = builder.extracts.isEmpty() ? Collections.emptyList() : new ArrayList<>(builder.extracts);
+    this.expects = builder.expects.isEmpty() ? Collections.emptyList() : new ArrayList<>(builder.expects);
+
+    Map<String, String> own = builder.headers;
+    boolean contentType = body != null && !own.containsKey(CONTENT_TYPE)
+        && !builder.sharedHeaders.containsKey(CONTENT_TYPE);
+    if (!builder.cookies.isEmpty() || contentType) {
+      own = new LinkedHashMap<>(own);
+      if (!builder.cookies.isEmpty()) {
+        own.put(COOKIE, builder.buildCookies());
+      }
+      if (contentType) {
+        own.put(CONTENT_TYPE, builder.form.isEmpty() ? "application/json" : "application/x-www-form-urlencoded");
+      }
+    }
+    if (own.isEmpty()) {
+      this.headers = builder.sharedHeaders;
+    } else if (builder.sharedHeaders.isEmpty()) {
+      this.headers = Collections.unmodifiableMap(own);
+    } else {
+      this.headers = new LayeredHeaders(builder.sharedHeaders, own);
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builds a JCurl that executes the whole call.
+   */
+  public JCurl toJCurl() {
+    JCurl.Builder jcurl = responseProcessorBuilder().method(method).url(url);
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      jcurl.header(header.getKey(), header.getValue());
+    }
+    if (body != null) {
+      jcurl.data(body);
+    }
+    if (keystore != null) {
+      jcurl.keystore(keystore);
+    }
+    if (storepass != null) {
+      jcurl.storepass(storepass);
+    }
+    if (storetype != null) {
+      jcurl.storetype(storetype);
+    }
+    return jcurl.build();
+  }
+
+  /**
+   * Builds a JCurl carrying only the expected response codes and extracted tags, for transports that open the
+   * connection themselves and hand it to {@link JCurl#processResponse}.
+   */
+  public JCurl getResponseProcessor() {
+    return responseProcessorBuilder().build();
+  }
+
+  /**
+   * Name the call is reported under in the client metrics; defaults to the URL path.
+   */
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public JCurl.HttpMethod getMethod() {
+    return method;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  /**
+   * Returns the UTF-8 encoded body, or {@code null} if the request has none. The array must not be modified.
+   */
+  public byte[] getBodyBytes() {
+    return bodyBytes;
+  }
+
+  public String getKeystore() {
+    return keystore;
+  }
+
+  public String getStorepass() {
+    return storepass;
+  }
+
+  public String getStoretype() {
+    return storetype;
+  }
+
+  /**
+   * Whether sending the request twice has the same effect as sending it once, so it may be retried after a failure
+   * whose outcome is unknown. Defaults to {@code true} for every method but POST.
+   */
+  public boolean isIdempotent() {
+    return idempotent;
+  }
+
+  @Override
+  public String toString() {
+    return method + " " + url;
+  }
+
+  private JCurl.Builder responseProcessorBuilder() {
+    JCurl.Builder jcurl = JCurl.builder();
+    for (String[] extract : extracts) {
+      if (extract[0] == null) {
+        jcurl.extract(extract[1]);
+      } else {
+        jcurl.extract(extract[0], extract[1]);
+      }
+    }
+    for (int expect : expects) {
+      jcurl.expect(expect);
+    }
+    return jcurl;
+  }
+
+  /**
+   * Read-only view of shared headers with a request's own headers on top, which win where both have a name.
+   */
+  private static final class LayeredHeaders extends AbstractMap<String, String> {
+    private final Map<String, String> shared;
+    private final Map<String, String> own;
+    private Set<Entry<String, String>> entries;
+
+    private LayeredHeaders(Map<String, String> shared, Map<String, String> own) {
+      this.shared = shared;
+      this.own = own;
+    }
+
+    @Override
+    public String get(Object name) {
+      String value = own.get(name);
+      return value != null ? value : shared.get(name);
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+      return own.containsKey(name) || shared.containsKey(name);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      if (entries == null) {
+        entries = new AbstractSet<Entry<String, String>>() {
+          @Override
+          public Iterator<Entry<String, String>> iterator() {
+            return new Iterator<Entry<String, String>>() {
+              private final Iterator<Entry<String, String>> sharedEntries = shared.entrySet().iterator();
+              private final Iterator<Entry<String, String>> ownEntries = own.entrySet().iterator();
+              private Entry<String, String> next = advance();
+
+              @Override
+              public boolean hasNext() {
+                return next != null;
+              }
+
+              @Override
+              public Entry<String, String> next() {
+                if (next == null) {
+                  throw new NoSuchElementException();
+                }
+                Entry<String, String> entry = next;
+                next = advance();
+                return entry;
+              }
+
+              private Entry<String, String> advance() {
+                while (sharedEntries.hasNext()) {
+                  Entry<String, String> entry = sharedEntries.next();
+                  if (!own.containsKey(entry.getKey())) {
+                    return new SimpleImmutableEntry<>(entry);
+                  }
+                }
+                return ownEntries.hasNext() ? new SimpleImmutableEntry<>(ownEntries.next()) : null;
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            int size = own.size();
+            for (String name : shared.keySet()) {
+              if (!own.containsKey(name)) {
+                size++;
+              }
+            }
+            return size;
+          }
+        };
+      }
+      return entries;
+    }
+  }
+
+  private static String encode(String value) {
+    try {
+      return URLEncoder.encode(value, UTF_8);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static class Builder {
+    private Map<String, String> sharedHeaders = Collections.emptyMap();
+    private Map<String, String> headers = Collections.emptyMap();
+    private boolean headersBuilt;
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+    private final Map<String, String> query = new LinkedHashMap<>();
+    private final Map<String, String> form = new LinkedHashMap<>();
+    private String endpoint;
+    private JCurl.HttpMethod method = JCurl.HttpMethod.GET;
+    private String url;
+    private String data;
+    private String keystore;
+    private String storepass;
+    private String storetype;
+    private Boolean idempotent;
+    private List<String[]> extracts = Collections.emptyList();
+    private List<Integer> expects = Collections.emptyList();
+
+    private Builder() {
+    }
+
+    public Builder endpoint(String endpoint) {
+      this.endpoint = endpoint;
+      return this;
+    }
+
+    public Builder method(JCurl.HttpMethod method) {
+      this.method = method;
+      return this;
+    }
+
+    public Builder url(String url) {
+      this.url = url;
+      return this;
+    }
+
+    public Builder header(String name, String value) {
+      ownHeaders().put(name, value);
+      return this;
+    }
+
+    /**
+     * Adds every entry of {@code headers}, e.g. the shared headers of a {@link RequestTemplate}. When these are the
+     * first headers of the request the map is shared with the built request rather than copied, so it must not change
+     * afterwards.
+     */
+    public Builder headers(Map<String, String> headers) {
+      if (sharedHeaders.isEmpty() && this.headers.isEmpty()) {
+        sharedHeaders = headers;
+        return this;
+      }
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        header(header.getKey(), header.getValue());
+      }
+      return this;
+    }
+
+    public Builder cookie(String name, String value) {
+      cookies.put(name, value);
+      return this;
+    }
+
+    public Builder query(String name, String value) {
+      query.put(name, value);
+      return this;
+    }
+
+    public Builder form(String name, String value) {
+      form.put(name, value);
+      return this;
+    }
+
+    public Builder data(String data) {
+      this.data = data;
+      return this;
+    }
+
+    public Builder keystore(String keystore) {
+      this.keystore = keystore;
+      return this;
+    }
+
+    public Builder storepass(String storepass) {
+      this.storepass = storepass;
+      return this;
+    }
+
+    public Builder storetype(String storetype) {
+      this.storetype = storetype;
+      return this;
+    }
+
+    public Builder idempotent(boolean idempotent) {
+      this.idempotent = idempotent;
+      return this;
+    }
+
+    public Builder extract(String path) {
+      return extract(null, path);
+    }
+
+    public Builder extract(String tag, String path) {
+      if (extracts.isEmpty()) {
+        extracts = new ArrayList<>(2);
+      }
+      extracts.add(new String[] {tag, path});
+      return this;
+    }
+
+    public Builder expect(int responseCode) {
+      if (expects.isEmpty()) {
+        expects = new ArrayList<>(2);
+      }
+      expects.add(responseCode);
+      return this;
+    }
+
+    public Request build() {
+      Request request = new Request(this);
+      headersBuilt = true;
+      return request;
+    }
+
+    /**
+     * Returns the headers set on this builder for modification, copying them first if a built request uses them.
+     */
+    private Map<String, String> ownHeaders() {
+      if (headers.isEmpty() || headersBuilt) {
+        headers = new LinkedHashMap<>(headers);
+        headersBuilt = false;
+      }
+      return headers;
+    }
+
+    private String buildUrl() {
+      if (query.isEmpty()) {
+        return url;
+      }
+      return url + (url.indexOf('?') < 0 ? "?" : "&") + join(query, "&", true);
+    }
+
+    private String buildPath() {
+      int start = url.indexOf("://");
+      int path = url.indexOf('/', start < 0 ? 0 : start + 3);
+      if (path < 0) {
+        return "/";
+      }
+      int query = url.indexOf('?', path);
+      return query < 0 ? url.substring(path) : url.substring(path, query);
+    }
+
+    private String buildBody() {
+      if (data != null) {
+        return data;
+      }
+      return form.isEmpty() ? null : join(form, "&", true);
+    }
+
+    private String buildCookies() {
+      return join(cookies, "; ", false);
+    }
+
+    private static String join(Map<String, String> values, String separator, boolean encode) {
+      StringBuilder sb = new StringBuilder();
+      for (Map.Entry<String, String> entry : values.entrySet()) {
+        if (sb.length() > 0) {
+          sb.append(separator);
+        }
+        sb.append(encode ? encode(entry.getKey()) : entry.getKey())
+            .append('=')
+            .append(encode ? encode(entry.getValue()) : entry.getValue());
+      }
+      return sb.toString();
+    }
+  }
+}
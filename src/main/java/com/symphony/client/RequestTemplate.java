@@ -0,0 +1,82 @@
+package com.symphony.client;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Headers shared by every authenticated call, computed once per set of tokens.
+ *
+ * <p>Instances are immutable and are replaced as a whole when the tokens change, so any number of threads can build
+ * requests from the same template without locking and without re-encoding the token headers and cookies each time.
+ */
+public final class RequestTemplate {
+  static final String SESSION_TOKEN = "sessionToken";
+  static final String KEY_MANAGER_TOKEN = "keyManagerToken";
+  static final String CSRF_TOKEN = "x-symphony-csrf-token";
+
+  private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+  private final AuthManager.Tokens tokens;
+  private final Map<String, String> session;
+  private final Map<String, String> keyManager;
+  private final Map<String, String> full;
+
+  public RequestTemplate(AuthManager.Tokens tokens) {
+    this.tokens = tokens;
+
+    Map<String, String> session = new LinkedHashMap<>();
+    session.put(SESSION_TOKEN, tokens.getSessionToken());
+    this.session = Collections.unmodifiableMap(session);
+
+    Map<String, String> keyManager = new LinkedHashMap<>(session);
+    keyManager.put(KEY_MANAGER_TOKEN, tokens.getKeyManagerToken());
+    this.keyManager = Collections.unmodifiableMap(keyManager);
+
+    Map<String, String> full = new LinkedHashMap<>(keyManager);
+    full.put("Cookie", "skey=" + tokens.getSessionToken() + "; kmtoken=" + tokens.getKeyManagerToken());
+    this.full = Collections.unmodifiableMap(full);
+  }
+
+  public AuthManager.Tokens getTokens() {
+    return tokens;
+  }
+
+  /**
+   * Starts a request carrying the session token header.
+   */
+  public Request.Builder session() {
+    return Request.builder().headers(session);
+  }
+
+  /**
+   * Starts a request carrying the session and key manager token headers.
+   */
+  public Request.Builder keyManager() {
+    return Request.builder().headers(keyManager);
+  }
+
+  /**
+   * Starts a request carrying both token headers, the matching cookies and a fresh CSRF token. The precomputed headers
+   * are shared with the built request, which only adds its own CSRF token on top.
+   */
+  public Request.Builder full() {
+    return Request.builder().headers(full).header(CSRF_TOKEN, csrfToken());
+  }
+
+  /**
+   * Random per-request token in the form of {@link UUID#randomUUID()}, drawn from a per-thread {@link SecureRandom}
+   * so that concurrent requests do not contend on one generator.
+   */
+  public static String csrfToken() {
+    byte[] bytes = new byte[16];
+    RANDOM.get().nextBytes(bytes);
+    bytes[6] = (byte) (bytes[6] & 0x0f | 0x40);
+    bytes[8] = (byte) (bytes[8] & 0x3f | 0x80);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong()).toString();
+  }
+}
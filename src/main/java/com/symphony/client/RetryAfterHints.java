@@ -0,0 +1,66 @@
+package com.symphony.client;
+
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers, per host, until when the server asked to be left alone through {@code Retry-After}.
+ */
+final class RetryAfterHints {
+  private final ConcurrentMap<String, Long> deadlines = new ConcurrentHashMap<>();
+
+  void record(URL url, HttpURLConnection connection, int responseCode) {
+    if (responseCode != 429 && responseCode != 503) {
+      return;
+    }
+    long delay = parse(connection.getHeaderField("Retry-After"));
+    if (delay > 0) {
+      deadlines.put(url.getHost(), System.currentTimeMillis() + delay);
+    }
+  }
+
+  long remainingMillis(Request request) {
+    String host;
+    try {
+      host = new URL(request.getUrl()).getHost();
+    } catch (MalformedURLException e) {
+      return 0;
+    }
+    Long deadline = deadlines.get(host);
+    if (deadline == null) {
+      return 0;
+    }
+    long remaining = deadline - System.currentTimeMillis();
+    if (remaining <= 0) {
+      deadlines.remove(host, deadline);
+      return 0;
+    }
+    return remaining;
+  }
+
+  /**
+   * Parses either form of the header: a number of seconds or an HTTP date.
+   */
+  static long parse(String value) {
+    if (value == null || value.isEmpty()) {
+      return 0;
+    }
+    try {
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+    } catch (NumberFormatException e) {
+      try {
+        ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+      } catch (DateTimeParseException ignored) {
+        return 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.symphony.client;
+
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.IOException;
+import java.security.cert.CertificateParsingException;
+
+/**
+ * Executes {@link Request}s on behalf of a {@link Client}.
+ */
+public interface Transport {
+
+  JCurl.Response execute(Request request) throws IOException, CertificateParsingException;
+
+  /**
+   * Returns how long the server asked clients to wait, through a {@code Retry-After} header on its last 429 or 503,
+   * before sending more requests to the host of {@code request}, or 0 if there is no such hint.
+   */
+  default long getRetryAfterMillis(Request request) {
+    return 0;
+  }
+}
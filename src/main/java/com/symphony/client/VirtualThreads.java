@@ -0,0 +1,93 @@
+package com.symphony.client;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads from code compiled for Java 8.
+ *
+ * <p>The classes are looked up once by reflection, so the same jar runs on any JDK and only starts virtual threads on
+ * JDK 21 or later. Blocking {@link Api} calls made from a virtual thread release their carrier thread while waiting
+ * on the socket, so thousands of calls can each have their own thread. The client's own waits on that path use
+ * {@code java.util.concurrent} locks rather than {@code synchronized}, which pins the carrier on JDK 21 to 23.
+ */
+public final class VirtualThreads {
+  private static final MethodHandle OF_VIRTUAL;
+  private static final MethodHandle NAME;
+  private static final MethodHandle FACTORY;
+  private static final MethodHandle PER_TASK_EXECUTOR;
+
+  static {
+    MethodHandle ofVirtual = null;
+    MethodHandle name = null;
+    MethodHandle factory = null;
+    MethodHandle perTaskExecutor = null;
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+      name = lookup.findVirtual(ofVirtualBuilder, "name",
+          MethodType.methodType(ofVirtualBuilder, String.class, long.class));
+      factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+      perTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+          MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+    } catch (ReflectiveOperationException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    FACTORY = factory;
+    PER_TASK_EXECUTOR = perTaskExecutor;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Whether the running JDK has virtual threads.
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Creates virtual threads named {@code prefix} followed by a counter.
+   *
+   * @throws UnsupportedOperationException if the JDK has no virtual threads
+   */
+  public static ThreadFactory factory(String prefix) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads need JDK 21 or later, running on "
+          + System.getProperty("java.version"));
+    }
+    try {
+      Object builder = NAME.invoke(OF_VIRTUAL.invoke(), prefix, 1L);
+      return (ThreadFactory) FACTORY.invoke(builder);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  /**
+   * Returns an executor that starts a new virtual thread for every task.
+   *
+   * @throws UnsupportedOperationException if the JDK has no virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+    ThreadFactory factory = factory(prefix);
+    try {
+      return (ExecutorService) PER_TASK_EXECUTOR.invoke(factory);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.symphony.client.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss, eviction and load figures of a single cache. Recording is wait-free, as in {@link EndpointMetrics}.
+ */
+public class CacheMetrics {
+  private final String name;
+  private final Recorder recorder = new Recorder(EndpointMetrics.MAX_LATENCY_NANOS, 3);
+  private final Histogram loadLatencies = new Histogram(EndpointMetrics.MAX_LATENCY_NANOS, 3);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private Histogram interval;
+
+  CacheMetrics(String name) {
+    this.name = name;
+  }
+
+  public void hit() {
+    hits.increment();
+  }
+
+  public void miss() {
+    misses.increment();
+  }
+
+  /**
+   * Records a finished load.
+   *
+   * @param start value of {@link System#nanoTime()} when the load started
+   */
+  public void load(long start, boolean success) {
+    recorder.recordValue(Math.min(System.nanoTime() - start, EndpointMetrics.MAX_LATENCY_NANOS));
+    if (!success) {
+      loadFailures.increment();
+    }
+  }
+
+  public void eviction() {
+    evictions.increment();
+  }
+
+  /**
+   * Counts a background reload of an entry that was still being served.
+   */
+  public void refresh() {
+    refreshes.increment();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public double getHitRatio() {
+    long hits = getHits();
+    long total = hits + getMisses();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  public long getLoadFailures() {
+    return loadFailures.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public long getRefreshes() {
+    return refreshes.sum();
+  }
+
+  /**
+   * Returns a copy of the load latencies (in nanoseconds) recorded since the metrics were created.
+   */
+  public synchronized Histogram getLoadLatencies() {
+    interval = recorder.getIntervalHistogram(interval);
+    loadLatencies.add(interval);
+    return loadLatencies.copy();
+  }
+}
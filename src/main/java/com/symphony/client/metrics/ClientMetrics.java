@@ -0,0 +1,39 @@
+package com.symphony.client.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-endpoint metrics of every call made through a {@link com.symphony.client.Client}, plus the metrics of the caches
+ * sitting in front of those calls.
+ */
+public class ClientMetrics {
+  private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CacheMetrics> caches = new ConcurrentHashMap<>();
+
+  public EndpointMetrics endpoint(String name) {
+    EndpointMetrics metrics = endpoints.get(name);
+    if (metrics == null) {
+      metrics = endpoints.computeIfAbsent(name, EndpointMetrics::new);
+    }
+    return metrics;
+  }
+
+  public Collection<EndpointMetrics> getEndpoints() {
+    return new ArrayList<>(endpoints.values());
+  }
+
+  public CacheMetrics cache(String name) {
+    CacheMetrics metrics = caches.get(name);
+    if (metrics == null) {
+      metrics = caches.computeIfAbsent(name, CacheMetrics::new);
+    }
+    return metrics;
+  }
+
+  public Collection<CacheMetrics> getCaches() {
+    return new ArrayList<>(caches.values());
+  }
+}
@@ -0,0 +1,112 @@
+package com.symphony.client.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, status code, traffic and concurrency figures of a single endpoint.
+ *
+ * <p>Recording is wait-free: latencies go into an HdrHistogram {@link Recorder} and counters are striped. Readers
+ * fold the recorder's interval histogram into a cumulative one on demand.
+ */
+public class EndpointMetrics {
+  static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+  private static final int MAX_STATUS_CODE = 600;
+
+  private final String name;
+  private final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+  private final Histogram latencies = new Histogram(MAX_LATENCY_NANOS, 3);
+  private final AtomicLongArray statusCodes = new AtomicLongArray(MAX_STATUS_CODE);
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private Histogram interval;
+
+  EndpointMetrics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Marks the start of a call.
+   *
+   * @return the start time to pass to {@link #success} or {@link #failure}
+   */
+  public long start() {
+    inFlight.incrementAndGet();
+    return System.nanoTime();
+  }
+
+  /**
+   * Records a completed call. Response sizes are taken from the decoded response text, so they count characters,
+   * which matches bytes for the ASCII JSON the pod returns.
+   */
+  public void success(long start, int statusCode, long requestBytes, long responseBytes) {
+    end(start, requestBytes);
+    bytesIn.add(responseBytes);
+    if (statusCode >= 0 && statusCode < MAX_STATUS_CODE) {
+      statusCodes.incrementAndGet(statusCode);
+    }
+  }
+
+  public void failure(long start, long requestBytes) {
+    end(start, requestBytes);
+    errors.increment();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns a copy of the latencies (in nanoseconds) recorded since the metrics were created.
+   */
+  public synchronized Histogram getLatencies() {
+    interval = recorder.getIntervalHistogram(interval);
+    latencies.add(interval);
+    return latencies.copy();
+  }
+
+  public long getStatusCount(int statusCode) {
+    return statusCodes.get(statusCode);
+  }
+
+  /**
+   * Returns the count of every status code seen so far, indexed by code.
+   */
+  public long[] getStatusCounts() {
+    long[] counts = new long[MAX_STATUS_CODE];
+    for (int i = 0; i < MAX_STATUS_CODE; i++) {
+      counts[i] = statusCodes.get(i);
+    }
+    return counts;
+  }
+
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  public long getBytesIn() {
+    return bytesIn.sum();
+  }
+
+  public long getBytesOut() {
+    return bytesOut.sum();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private void end(long start, long requestBytes) {
+    recorder.recordValue(Math.min(System.nanoTime() - start, MAX_LATENCY_NANOS));
+    inFlight.decrementAndGet();
+    bytesOut.add(requestBytes);
+  }
+}
@@ -0,0 +1,160 @@
+package com.symphony.client.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically logs one line per endpoint with the figures of the last period and, optionally, rewrites a JSON file
+ * with the totals since start.
+ */
+@Slf4j
+public class MetricsReporter implements Closeable {
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private final ClientMetrics metrics;
+  private final Path jsonFile;
+  private final ScheduledExecutorService scheduler;
+  private final Map<String, Histogram> previous = new HashMap<>();
+
+  /**
+   * @param jsonFile file to write snapshots to, or {@code null} to only log
+   */
+  public MetricsReporter(ClientMetrics metrics, Path jsonFile) {
+    this.metrics = metrics;
+    this.jsonFile = jsonFile;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "metrics-reporter");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public void start(long period, TimeUnit unit) {
+    scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+  }
+
+  /**
+   * Reports once more and stops.
+   */
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    report();
+  }
+
+  synchronized void report() {
+    try {
+      Map<String, Histogram> totals = new HashMap<>();
+      for (EndpointMetrics endpoint : metrics.getEndpoints()) {
+        Histogram total = endpoint.getLatencies();
+        totals.put(endpoint.getName(), total);
+
+        Histogram period = total.copy();
+        Histogram before = previous.get(endpoint.getName());
+        if (before != null) {
+          period.subtract(before);
+        }
+        if (period.getTotalCount() > 0 || endpoint.getInFlight() > 0) {
+          log.info("[metrics] {} count={} p50={}us p99={}us max={}us inFlight={} errors={} in={}B out={}B",
+              endpoint.getName(), period.getTotalCount(), micros(period.getValueAtPercentile(50)),
+              micros(period.getValueAtPercentile(99)), micros(period.getMaxValue()), endpoint.getInFlight(),
+              endpoint.getErrors(), endpoint.getBytesIn(), endpoint.getBytesOut());
+        }
+      }
+      previous.putAll(totals);
+
+      for (CacheMetrics cache : metrics.getCaches()) {
+        Histogram loads = cache.getLoadLatencies();
+        log.info("[metrics] cache {} hits={} misses={} hitRatio={} loads={} loadP99={}us loadFailures={} "
+                + "evictions={} refreshes={}", cache.getName(), cache.getHits(), cache.getMisses(),
+            String.format("%.3f", cache.getHitRatio()), loads.getTotalCount(),
+            micros(loads.getValueAtPercentile(99)), cache.getLoadFailures(), cache.getEvictions(),
+            cache.getRefreshes());
+      }
+
+      if (jsonFile != null) {
+        writeJson(totals);
+      }
+    } catch (IOException | RuntimeException e) {
+      log.error("Unable to report metrics", e);
+    }
+  }
+
+  private void writeJson(Map<String, Histogram> totals) throws IOException {
+    Path tmp = jsonFile.resolveSibling(jsonFile.getFileName() + ".tmp");
+    try (OutputStream os = Files.newOutputStream(tmp); JsonGenerator json = JSON.createGenerator(os)) {
+      json.useDefaultPrettyPrinter();
+      json.writeStartObject();
+      json.writeNumberField("timestamp", System.currentTimeMillis());
+      json.writeObjectFieldStart("endpoints");
+      for (EndpointMetrics endpoint : metrics.getEndpoints()) {
+        Histogram latencies = totals.get(endpoint.getName());
+        if (latencies == null) {
+          continue;
+        }
+        json.writeObjectFieldStart(endpoint.getName());
+        json.writeNumberField("count", latencies.getTotalCount());
+        json.writeNumberField("errors", endpoint.getErrors());
+        json.writeNumberField("inFlight", endpoint.getInFlight());
+        json.writeNumberField("bytesIn", endpoint.getBytesIn());
+        json.writeNumberField("bytesOut", endpoint.getBytesOut());
+        json.writeObjectFieldStart("latencyMicros");
+        json.writeNumberField("p50", micros(latencies.getValueAtPercentile(50)));
+        json.writeNumberField("p90", micros(latencies.getValueAtPercentile(90)));
+        json.writeNumberField("p99", micros(latencies.getValueAtPercentile(99)));
+        json.writeNumberField("p999", micros(latencies.getValueAtPercentile(99.9)));
+        json.writeNumberField("max", micros(latencies.getMaxValue()));
+        json.writeEndObject();
+        json.writeObjectFieldStart("statusCodes");
+        long[] codes = endpoint.getStatusCounts();
+        for (int code = 0; code < codes.length; code++) {
+          if (codes[code] > 0) {
+            json.writeNumberField(String.valueOf(code), codes[code]);
+          }
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+      }
+      json.writeEndObject();
+      json.writeObjectFieldStart("caches");
+      for (CacheMetrics cache : metrics.getCaches()) {
+        Histogram loads = cache.getLoadLatencies();
+        json.writeObjectFieldStart(cache.getName());
+        json.writeNumberField("hits", cache.getHits());
+        json.writeNumberField("misses", cache.getMisses());
+        json.writeNumberField("hitRatio", cache.getHitRatio());
+        json.writeNumberField("loads", loads.getTotalCount());
+        json.writeNumberField("loadFailures", cache.getLoadFailures());
+        json.writeNumberField("evictions", cache.getEvictions());
+        json.writeNumberField("refreshes", cache.getRefreshes());
+        json.writeObjectFieldStart("loadLatencyMicros");
+        json.writeNumberField("p50", micros(loads.getValueAtPercentile(50)));
+        json.writeNumberField("p99", micros(loads.getValueAtPercentile(99)));
+        json.writeNumberField("max", micros(loads.getMaxValue()));
+        json.writeEndObject();
+        json.writeEndObject();
+      }
+      json.writeEndObject();
+      json.writeEndObject();
+    }
+    Files.move(tmp, jsonFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
@@ -0,0 +1,136 @@
+package com.symphony.client.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.Histogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves the client metrics in the Prometheus text exposition format on {@code /metrics}.
+ */
+public class PrometheusExporter implements Closeable {
+  private static final double[] QUANTILES = new double[] {0.5, 0.9, 0.99, 0.999};
+
+  private final ClientMetrics metrics;
+  private final HttpServer server;
+
+  public PrometheusExporter(ClientMetrics metrics, int port) throws IOException {
+    this.metrics = metrics;
+    this.server = HttpServer.create(new InetSocketAddress(port), 0);
+    this.server.createContext("/metrics", exchange -> {
+      byte[] body = render().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(body);
+      }
+    });
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  String render() {
+    List<EndpointMetrics> endpoints = new ArrayList<>(metrics.getEndpoints());
+    List<Histogram> latencies = new ArrayList<>(endpoints.size());
+    for (EndpointMetrics endpoint : endpoints) {
+      latencies.add(endpoint.getLatencies());
+    }
+
+    StringBuilder sb = new StringBuilder(4096);
+
+    sb.append("# TYPE presence_client_request_seconds summary\n");
+    for (int i = 0; i < endpoints.size(); i++) {
+      String label = label(endpoints.get(i));
+      Histogram histogram = latencies.get(i);
+      for (double quantile : QUANTILES) {
+        sample(sb, "presence_client_request_seconds", label + ",quantile=\"" + quantile + "\"",
+            histogram.getValueAtPercentile(quantile * 100) / 1e9);
+      }
+      sample(sb, "presence_client_request_seconds_sum", label, histogram.getMean() * histogram.getTotalCount() / 1e9);
+      sample(sb, "presence_client_request_seconds_count", label, histogram.getTotalCount());
+    }
+
+    sb.append("# TYPE presence_client_responses_total counter\n");
+    for (EndpointMetrics endpoint : endpoints) {
+      long[] codes = endpoint.getStatusCounts();
+      for (int code = 0; code < codes.length; code++) {
+        if (codes[code] > 0) {
+          sample(sb, "presence_client_responses_total", label(endpoint) + ",code=\"" + code + "\"", codes[code]);
+        }
+      }
+    }
+
+    sb.append("# TYPE presence_client_errors_total counter\n");
+    for (EndpointMetrics endpoint : endpoints) {
+      sample(sb, "presence_client_errors_total", label(endpoint), endpoint.getErrors());
+    }
+
+    sb.append("# TYPE presence_client_bytes_in_total counter\n");
+    for (EndpointMetrics endpoint : endpoints) {
+      sample(sb, "presence_client_bytes_in_total", label(endpoint), endpoint.getBytesIn());
+    }
+
+    sb.append("# TYPE presence_client_bytes_out_total counter\n");
+    for (EndpointMetrics endpoint : endpoints) {
+      sample(sb, "presence_client_bytes_out_total", label(endpoint), endpoint.getBytesOut());
+    }
+
+    sb.append("# TYPE presence_client_in_flight gauge\n");
+    for (EndpointMetrics endpoint : endpoints) {
+      sample(sb, "presence_client_in_flight", label(endpoint), endpoint.getInFlight());
+    }
+
+    List<CacheMetrics> caches = new ArrayList<>(metrics.getCaches());
+
+    sb.append("# TYPE presence_client_cache_requests_total counter\n");
+    for (CacheMetrics cache : caches) {
+      sample(sb, "presence_client_cache_requests_total", label(cache) + ",result=\"hit\"", cache.getHits());
+      sample(sb, "presence_client_cache_requests_total", label(cache) + ",result=\"miss\"", cache.getMisses());
+    }
+
+    sb.append("# TYPE presence_client_cache_evictions_total counter\n");
+    for (CacheMetrics cache : caches) {
+      sample(sb, "presence_client_cache_evictions_total", label(cache), cache.getEvictions());
+    }
+
+    sb.append("# TYPE presence_client_cache_load_seconds summary\n");
+    for (CacheMetrics cache : caches) {
+      String label = label(cache);
+      Histogram histogram = cache.getLoadLatencies();
+      for (double quantile : QUANTILES) {
+        sample(sb, "presence_client_cache_load_seconds", label + ",quantile=\"" + quantile + "\"",
+            histogram.getValueAtPercentile(quantile * 100) / 1e9);
+      }
+      sample(sb, "presence_client_cache_load_seconds_sum", label,
+          histogram.getMean() * histogram.getTotalCount() / 1e9);
+      sample(sb, "presence_client_cache_load_seconds_count", label, histogram.getTotalCount());
+    }
+
+    return sb.toString();
+  }
+
+  private static String label(CacheMetrics cache) {
+    return "cache=\"" + cache.getName() + "\"";
+  }
+
+  private static String label(EndpointMetrics endpoint) {
+    return "endpoint=\"" + endpoint.getName() + "\"";
+  }
+
+  private static void sample(StringBuilder sb, String name, String labels, double value) {
+    sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+  }
+}
@@ -0,0 +1,288 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.Api;
+import com.symphony.client.VirtualThreads;
+
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.cert.CertificateParsingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous counterpart of the presence calls in {@link Api}.
+ *
+ * <p>Calls are run on a fixed pool of {@code maxInFlight} workers on top of the client's keep-alive transport, so at
+ * most {@code maxInFlight} requests are on the wire at once. Up to {@code maxQueued} further calls wait for a worker;
+ * beyond that the returned future fails with a {@link RejectedExecutionException}, which callers can treat as
+ * backpressure.
+ *
+ * <p>With {@code virtualThreads} (JDK 21 or later) every call gets its own virtual thread instead. The same limits
+ * apply, enforced by permits rather than by the pool size, so {@code maxInFlight} can be raised to thousands without
+ * paying for that many platform threads.
+ *
+ * <p>{@link #getPresences(Collection)} shares one in-flight lookup between all callers asking for the same user, so
+ * overlapping roster loads do not multiply requests.
+ */
+public class AsyncPresenceApi implements Closeable {
+  public static final int DEFAULT_MAX_IN_FLIGHT = 32;
+  public static final int DEFAULT_MAX_QUEUED = 10000;
+  public static final int SCAN_THRESHOLD = 1000;
+  /**
+   * Largest id span per requested user for which a set above {@code SCAN_THRESHOLD} is read by paging.
+   */
+  public static final int SCAN_MAX_SPAN_PER_USER = 4;
+
+  private static final int SCAN_PAGE_SIZE = 1000;
+
+  private final Api api;
+  private final ExecutorService executor;
+  private final int maxInFlight;
+  private final Semaphore admitted;
+  private final Semaphore running;
+  private final ConcurrentMap<Long, CompletableFuture<Presence>> lookups = new ConcurrentHashMap<>();
+
+  public AsyncPresenceApi(Api api) {
+    this(api, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUED);
+  }
+
+  public AsyncPresenceApi(Api api, int maxInFlight, int maxQueued) {
+    this(api, maxInFlight, maxQueued, false);
+  }
+
+  /**
+   * @param virtualThreads run each call on its own virtual thread
+   * @throws UnsupportedOperationException if {@code virtualThreads} is set and the JDK has no virtual threads
+   */
+  public AsyncPresenceApi(Api api, int maxInFlight, int maxQueued, boolean virtualThreads) {
+    this.api = api;
+    this.maxInFlight = maxInFlight;
+    if (virtualThreads) {
+      this.executor = VirtualThreads.newThreadPerTaskExecutor("presence-async-");
+      this.admitted = new Semaphore(maxInFlight + maxQueued);
+      this.running = new Semaphore(maxInFlight);
+    } else {
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(maxInFlight, maxInFlight, 60, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(maxQueued), new WorkerThreadFactory());
+      pool.allowCoreThreadTimeOut(true);
+      this.executor = pool;
+      this.admitted = null;
+      this.running = null;
+    }
+  }
+
+  public CompletableFuture<Presence> setPresence(String userId, String status) {
+    return submit(() -> PresenceResponses.toPresence(api.setPresence(userId, status)));
+  }
+
+  public CompletableFuture<Presence> getPresence(String userId) {
+    return submit(() -> PresenceResponses.toPresence(api.getPresence(userId)));
+  }
+
+  /**
+   * Looks up the presence of several users with parallel {@code getPresence} calls, joining any lookup already in
+   * flight for the same user, so the total time is that of the slowest calls rather than their sum. Sets above
+   * {@code SCAN_THRESHOLD} users are looked up in chunks of that size, one chunk after the other, unless their ids are
+   * dense: when the span from the lowest to the highest id is at most {@code SCAN_MAX_SPAN_PER_USER} times the number
+   * of users, the range is read with {@code getAllPresence} pages instead. Users the pod does not know, for which
+   * {@code getPresence} returns a 404 or which no page contains, are missing from the result; if any other call fails
+   * the returned future fails.
+   */
+  public CompletableFuture<Map<Long, Presence>> getPresences(Collection<Long> userIds) {
+    Set<Long> distinct = new HashSet<>(userIds);
+    if (distinct.isEmpty()) {
+      return CompletableFuture.completedFuture(Collections.emptyMap());
+    }
+    if (distinct.size() > SCAN_THRESHOLD) {
+      NavigableSet<Long> sorted = new TreeSet<>(distinct);
+      if (sorted.last() - sorted.first() < (long) SCAN_MAX_SPAN_PER_USER * sorted.size()) {
+        return scan(sorted, sorted.first() - 1, new HashMap<>(sorted.size() * 2));
+      }
+    }
+    return lookupChunks(new ArrayList<>(distinct), 0, new HashMap<>(distinct.size() * 2));
+  }
+
+  public CompletableFuture<List<Presence>> readPresenceFeed(String feedId) {
+    return submit(() -> PresenceResponses.toPresences(api.readPresenceFeed(feedId)));
+  }
+
+  public CompletableFuture<List<Presence>> getAllPresence(long lastUserId, int limit) {
+    return submit(() -> PresenceResponses.toPresences(api.getAllPresence(lastUserId, limit)));
+  }
+
+  /**
+   * Appends the feed events to {@code batch}, which must not be touched until the future completes.
+   */
+  public CompletableFuture<PresenceBatch> readPresenceFeed(String feedId, PresenceBatch batch) {
+    return submit(() -> {
+      PresenceResponses.toBatch(api.readPresenceFeed(feedId), batch);
+      return batch;
+    });
+  }
+
+  /**
+   * Appends a page of presences to {@code batch}, which must not be touched until the future completes.
+   */
+  public CompletableFuture<PresenceBatch> getAllPresence(long lastUserId, int limit, PresenceBatch batch) {
+    return submit(() -> {
+      PresenceResponses.toBatch(api.getAllPresence(lastUserId, limit), batch);
+      return batch;
+    });
+  }
+
+  public CompletableFuture<JCurl.Response> getUserInfoById(String userId, Boolean local) {
+    return submit(() -> api.getUserInfoById(userId, local));
+  }
+
+  public int getInFlight() {
+    if (running != null) {
+      return maxInFlight - running.availablePermits();
+    }
+    return ((ThreadPoolExecutor) executor).getActiveCount();
+  }
+
+  public int getQueued() {
+    if (running != null) {
+      return running.getQueueLength();
+    }
+    return ((ThreadPoolExecutor) executor).getQueue().size();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private CompletableFuture<Presence> lookup(long userId) {
+    CompletableFuture<Presence> lookup = lookups.get(userId);
+    if (lookup != null) {
+      return lookup;
+    }
+    CompletableFuture<Presence> created = new CompletableFuture<>();
+    lookup = lookups.putIfAbsent(userId, created);
+    if (lookup != null) {
+      return lookup;
+    }
+
+    String id = String.valueOf(userId);
+    submit(() -> PresenceResponses.toPresenceIfFound(api.getPresence(id))).whenComplete((presence, failure) -> {
+      lookups.remove(userId, created);
+      if (failure != null) {
+        created.completeExceptionally(failure);
+      } else {
+        created.complete(presence);
+      }
+    });
+    return created;
+  }
+
+  /**
+   * Looks up the users from {@code from} on, {@code SCAN_THRESHOLD} at a time.
+   */
+  private CompletableFuture<Map<Long, Presence>> lookupChunks(List<Long> userIds, int from,
+      Map<Long, Presence> found) {
+    int to = Math.min(from + SCAN_THRESHOLD, userIds.size());
+    Map<Long, CompletableFuture<Presence>> pending = new HashMap<>((to - from) * 2);
+    for (Long userId : userIds.subList(from, to)) {
+      pending.put(userId, lookup(userId));
+    }
+    return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0])).thenCompose(done -> {
+      for (Map.Entry<Long, CompletableFuture<Presence>> entry : pending.entrySet()) {
+        Presence presence = entry.getValue().join();
+        if (presence != null) {
+          found.put(entry.getKey(), presence);
+        }
+      }
+      return to == userIds.size() ? CompletableFuture.completedFuture(found) : lookupChunks(userIds, to, found);
+    });
+  }
+
+  private CompletableFuture<Map<Long, Presence>> scan(NavigableSet<Long> userIds, long after,
+      Map<Long, Presence> found) {
+    return getAllPresence(after, SCAN_PAGE_SIZE).thenCompose(page -> {
+      for (Presence presence : page) {
+        if (userIds.contains(presence.getUserId())) {
+          found.put(presence.getUserId(), presence);
+        }
+      }
+      long last = page.isEmpty() ? Long.MAX_VALUE : page.get(page.size() - 1).getUserId();
+      if (page.size() < SCAN_PAGE_SIZE || last >= userIds.last()) {
+        return CompletableFuture.completedFuture(found);
+      }
+      return scan(userIds, last, found);
+    });
+  }
+
+  private <T> CompletableFuture<T> submit(Call<T> call) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    if (admitted != null && !admitted.tryAcquire()) {
+      future.completeExceptionally(new RejectedExecutionException("Too many calls queued"));
+      return future;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          if (running != null) {
+            running.acquire();
+          }
+          try {
+            future.complete(call.call());
+          } finally {
+            if (running != null) {
+              running.release();
+            }
+          }
+        } catch (Throwable t) {
+          future.completeExceptionally(t instanceof CompletionException ? t : new CompletionException(t));
+        } finally {
+          if (admitted != null) {
+            admitted.release();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      if (admitted != null) {
+        admitted.release();
+      }
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private interface Call<T> {
+    T call() throws IOException, CertificateParsingException;
+  }
+
+  private static class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "presence-async-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.symphony.client.presence;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of a {@link LoadGenerator} run, read from properties prefixed with {@code load.}:
+ *
+ * <pre>
+ * load.threads      worker threads issuing setPresence calls (default 16)
+ * load.executor     PLATFORM for a pool of load.threads threads, VIRTUAL for one virtual thread per call (JDK 21+),
+ *                   or COMPARE to run once with each and report both (default PLATFORM)
+ * load.rate         target setPresence calls per second, independent of response times (default 50)
+ * load.rateTo       if set, the rate grows (or shrinks) linearly from load.rate to this over the run
+ * load.seed         seed for the choice of users and statuses, making the sequence of writes repeatable
+ *                   (default: a different sequence on every run)
+ * load.users        number of users to spread updates over (default: all)
+ * load.statuses     weighted status mix, e.g. AVAILABLE:5,AWAY:2,BUSY:1 (default: uniform)
+ * load.duration     run length in seconds (default 60)
+ * load.feedReaders  threads reading the presence feed concurrently (default 1)
+ * </pre>
+ */
+@Data
+public class LoadConfig {
+  private int threads = 16;
+  private Executor executor = Executor.PLATFORM;
+  private double rate = 50;
+  private double rateTo;
+  private Long seed;
+  private int users = Integer.MAX_VALUE;
+  private Map<PresenceStatus, Integer> statuses = uniformStatuses();
+  private long durationSeconds = 60;
+  private int feedReaders = 1;
+
+  public static LoadConfig fromProperties(Properties properties) {
+    LoadConfig config = new LoadConfig();
+    config.setThreads(Integer.parseInt(properties.getProperty("load.threads", String.valueOf(config.threads))));
+    config.setExecutor(Executor.valueOf(
+        properties.getProperty("load.executor", config.executor.name()).trim().toUpperCase(Locale.ROOT)));
+    config.setRate(Double.parseDouble(properties.getProperty("load.rate", String.valueOf(config.rate))));
+    config.setRateTo(Double.parseDouble(properties.getProperty("load.rateTo", String.valueOf(config.rateTo))));
+    String seed = properties.getProperty("load.seed");
+    if (seed != null) {
+      config.setSeed(Long.parseLong(seed.trim()));
+    }
+    config.setUsers(Integer.parseInt(properties.getProperty("load.users", String.valueOf(config.users))));
+    config.setDurationSeconds(
+        Long.parseLong(properties.getProperty("load.duration", String.valueOf(config.durationSeconds))));
+    config.setFeedReaders(
+        Integer.parseInt(properties.getProperty("load.feedReaders", String.valueOf(config.feedReaders))));
+
+    String statuses = properties.getProperty("load.statuses");
+    if (statuses != null) {
+      config.setStatuses(parseStatuses(statuses));
+    }
+    return config;
+  }
+
+  /**
+   * Returns a copy that differs only in its executor.
+   */
+  public LoadConfig withExecutor(Executor executor) {
+    LoadConfig copy = new LoadConfig();
+    copy.setThreads(threads);
+    copy.setExecutor(executor);
+    copy.setRate(rate);
+    copy.setRateTo(rateTo);
+    copy.setSeed(seed);
+    copy.setUsers(users);
+    copy.setStatuses(new EnumMap<>(statuses));
+    copy.setDurationSeconds(durationSeconds);
+    copy.setFeedReaders(feedReaders);
+    return copy;
+  }
+
+  /**
+   * Parses a weighted status mix such as {@code AVAILABLE:5,AWAY:2,BUSY}; a status without a weight counts once.
+   */
+  public static Map<PresenceStatus, Integer> parseStatuses(String value) {
+    Map<PresenceStatus, Integer> statuses = new EnumMap<>(PresenceStatus.class);
+    for (String entry : value.split(",")) {
+      String[] parts = entry.trim().split(":");
+      PresenceStatus status = PresenceStatus.valueOf(parts[0].trim());
+      statuses.put(status, parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+    }
+    return statuses;
+  }
+
+  private static Map<PresenceStatus, Integer> uniformStatuses() {
+    Map<PresenceStatus, Integer> statuses = new EnumMap<>(PresenceStatus.class);
+    for (PresenceStatus status : PresenceStatus.values()) {
+      if (status != PresenceStatus.UNKNOWN) {
+        statuses.put(status, 1);
+      }
+    }
+    return statuses;
+  }
+
+  public enum Executor {
+    PLATFORM, VIRTUAL, COMPARE
+  }
+}
@@ -0,0 +1,324 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.Api;
+import com.symphony.client.VirtualThreads;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives presence writes at a constant rate while reading the presence feed, and reports throughput and latency
+ * percentiles per operation.
+ *
+ * <p>Writes follow an open model: a pacing thread releases one {@code setPresence} every {@code 1 / rate} seconds
+ * whether or not earlier calls have returned, and latency is measured from the moment a call was scheduled. A slow
+ * pod therefore shows up as growing latency instead of silently lowering the offered load. With {@code rateTo} set
+ * the rate changes linearly over the run. The pacing thread also picks the user and status of every call, so runs
+ * with the same {@code seed} issue the same sequence of writes.
+ *
+ * <p>Calls run on a pool of {@code threads} platform threads, or on one virtual thread each; {@link #compare} runs
+ * the same load with both so their latencies can be put side by side.
+ */
+@Slf4j
+public class LoadGenerator {
+  static final String SET_PRESENCE = "setPresence";
+  static final String READ_PRESENCE_FEED = "readPresenceFeed";
+
+  private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+  private static final long EXPIRE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long DRAIN_TIMEOUT_MILLIS = 5000;
+
+  private final Api api;
+  private final String[] users;
+  private final LoadConfig config;
+  private final PresenceStatus[] statusWheel;
+  private final Map<String, Operation> operations = new LinkedHashMap<>();
+  private final PropagationTracker tracker = new PropagationTracker();
+
+  private volatile boolean running;
+
+  public LoadGenerator(Api api, String[] users, LoadConfig config) {
+    if (config.getExecutor() == LoadConfig.Executor.COMPARE) {
+      throw new IllegalArgumentException("Use LoadGenerator.compare to run with both executors");
+    }
+    this.api = api;
+    this.users = Arrays.copyOf(users, Math.min(users.length, config.getUsers()));
+    this.config = config;
+    this.statusWheel = buildStatusWheel(config.getStatuses());
+    operations.put(SET_PRESENCE, new Operation(SET_PRESENCE));
+    operations.put(READ_PRESENCE_FEED, new Operation(READ_PRESENCE_FEED));
+  }
+
+  public PropagationTracker getPropagationTracker() {
+    return tracker;
+  }
+
+  /**
+   * Runs the load once per executor, platform threads first, and logs the two results next to each other.
+   *
+   * @return the results of each run, keyed by executor
+   */
+  public static Map<LoadConfig.Executor, Map<String, Result>> compare(Api api, String[] users, LoadConfig config)
+      throws InterruptedException {
+    Map<LoadConfig.Executor, Map<String, Result>> runs = new LinkedHashMap<>();
+    for (LoadConfig.Executor executor : new LoadConfig.Executor[] {LoadConfig.Executor.PLATFORM,
+        LoadConfig.Executor.VIRTUAL}) {
+      runs.put(executor, new LoadGenerator(api, users, config.withExecutor(executor)).run());
+    }
+
+    log.info("===== Platform ({} threads) vs virtual threads =====", config.getThreads());
+    for (String operation : runs.get(LoadConfig.Executor.PLATFORM).keySet()) {
+      for (Map.Entry<LoadConfig.Executor, Map<String, Result>> run : runs.entrySet()) {
+        log.info("{} {}", String.format("%-8s", run.getKey()), run.getValue().get(operation));
+      }
+    }
+    return runs;
+  }
+
+  public Map<String, Result> run() throws InterruptedException {
+    boolean virtual = config.getExecutor() == LoadConfig.Executor.VIRTUAL;
+    log.info("===== Load: {} req/s over {} users for {} s on {} =====",
+        config.getRateTo() > 0 ? config.getRate() + " to " + config.getRateTo() : config.getRate(), users.length,
+        config.getDurationSeconds(), virtual ? "virtual threads" : config.getThreads() + " threads");
+
+    ExecutorService workers = virtual ? VirtualThreads.newThreadPerTaskExecutor("load-worker-")
+        : Executors.newFixedThreadPool(config.getThreads());
+    List<Thread> readers = new ArrayList<>();
+    running = true;
+
+    for (int i = 0; i < config.getFeedReaders(); i++) {
+      boolean track = i == 0;
+      Thread reader = new Thread(() -> readFeed(track), "load-feed-reader-" + i);
+      reader.setDaemon(true);
+      reader.start();
+      readers.add(reader);
+    }
+
+    Random random = config.getSeed() != null ? new Random(config.getSeed()) : new Random();
+    long start = System.nanoTime();
+    long duration = TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+    long end = start + duration;
+
+    for (long intended = start; intended < end; intended += interval(intended - start, duration)) {
+      long delay = intended - System.nanoTime();
+      if (delay > 0) {
+        LockSupport.parkNanos(delay);
+      }
+      long scheduled = intended;
+      String user = users[random.nextInt(users.length)];
+      PresenceStatus status = statusWheel[random.nextInt(statusWheel.length)];
+      workers.execute(() -> setPresence(scheduled, user, status));
+    }
+
+    workers.shutdown();
+    workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+    long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+    while (tracker.hasPendingWrites() && System.currentTimeMillis() < drainDeadline) {
+      Thread.sleep(10);
+    }
+    running = false;
+    for (Thread reader : readers) {
+      reader.join();
+    }
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (Operation operation : operations.values()) {
+      Result result = operation.result(seconds);
+      results.put(operation.name, result);
+      log.info("{}", result);
+    }
+    log.info("{}", tracker.result());
+    return results;
+  }
+
+  /**
+   * Returns the pause before the next call, {@code elapsed} nanoseconds into a run of {@code duration}.
+   */
+  private long interval(long elapsed, long duration) {
+    double rate = config.getRate();
+    if (config.getRateTo() > 0) {
+      rate += (config.getRateTo() - rate) * elapsed / duration;
+    }
+    return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+  }
+
+  private void setPresence(long scheduled, String user, PresenceStatus status) {
+    Operation operation = operations.get(SET_PRESENCE);
+
+    try {
+      long sendNanos = tracker.begin();
+      JCurl.Response response = api.setPresence(user, status.name());
+      boolean success = response.getResponseCode() == 200;
+      operation.record(scheduled, success);
+      if (success) {
+        tracker.sent(sendNanos, PresenceCodec.decode(response.getOutput()));
+      }
+    } catch (Exception e) {
+      operation.record(scheduled, false);
+      log.debug("setPresence failed", e);
+    }
+  }
+
+  /**
+   * Reads a dedicated feed until the run ends. Only one reader feeds the propagation tracker, since every feed sees
+   * every write. Empty reads and errors back off the same way as {@link PresenceFeedStream}.
+   */
+  private void readFeed(boolean track) {
+    Operation operation = operations.get(READ_PRESENCE_FEED);
+    String feedId;
+    try {
+      JCurl.Response response = api.createPresenceFeed();
+      PresenceResponses.checkResponse(response);
+      feedId = response.getTag("id");
+    } catch (Exception | InternalError e) {
+      log.error("Unable to create presence feed for load run", e);
+      return;
+    }
+
+    PresenceBatch batch = new PresenceBatch();
+    long lastExpire = System.nanoTime();
+    long backoff = 0;
+    while (running) {
+      if (backoff > 0) {
+        try {
+          Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      long start = System.nanoTime();
+      try {
+        batch.clear();
+        PresenceResponses.toBatch(api.readPresenceFeed(feedId), batch);
+        operation.record(start, true);
+        operation.events.addAndGet(batch.size());
+        backoff = batch.size() == 0 ? increase(backoff) : 0;
+        if (track) {
+          for (int i = 0; i < batch.size(); i++) {
+            tracker.received(batch.getUserId(i), batch.getTimestamp(i));
+          }
+          if (start - lastExpire > EXPIRE_INTERVAL_NANOS) {
+            tracker.expire();
+            lastExpire = start;
+          }
+        }
+      } catch (Exception | InternalError e) {
+        operation.record(start, false);
+        log.debug("readPresenceFeed failed", e);
+        backoff = increase(backoff);
+      }
+    }
+  }
+
+  private static long increase(long backoff) {
+    return PresenceFeedStream.increase(backoff, PresenceFeedStream.DEFAULT_MIN_BACKOFF_MILLIS,
+        PresenceFeedStream.DEFAULT_MAX_BACKOFF_MILLIS);
+  }
+
+  private static PresenceStatus[] buildStatusWheel(Map<PresenceStatus, Integer> weights) {
+    List<PresenceStatus> wheel = new ArrayList<>();
+    for (Map.Entry<PresenceStatus, Integer> entry : weights.entrySet()) {
+      for (int i = 0; i < entry.getValue(); i++) {
+        wheel.add(entry.getKey());
+      }
+    }
+    if (wheel.isEmpty()) {
+      throw new IllegalArgumentException("No status has a positive weight");
+    }
+    return wheel.toArray(new PresenceStatus[0]);
+  }
+
+  private static class Operation {
+    private final String name;
+    private final Recorder latencies = new Recorder(MAX_LATENCY_NANOS, 3);
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+
+    private Operation(String name) {
+      this.name = name;
+    }
+
+    private void record(long startNanos, boolean success) {
+      latencies.recordValue(Math.min(System.nanoTime() - startNanos, MAX_LATENCY_NANOS));
+      if (!success) {
+        errors.incrementAndGet();
+      }
+    }
+
+    private Result result(double seconds) {
+      return new Result(name, latencies.getIntervalHistogram(), errors.get(), events.get(), seconds);
+    }
+  }
+
+  /**
+   * Outcome of one operation over a load run. Latencies are in microseconds.
+   */
+  public static class Result {
+    private final String operation;
+    private final Histogram histogram;
+    private final long errors;
+    private final long events;
+    private final double seconds;
+
+    Result(String operation, Histogram histogram, long errors, long events, double seconds) {
+      this.operation = operation;
+      this.histogram = histogram;
+      this.errors = errors;
+      this.events = events;
+      this.seconds = seconds;
+    }
+
+    public String getOperation() {
+      return operation;
+    }
+
+    public Histogram getHistogram() {
+      return histogram;
+    }
+
+    public long getCount() {
+      return histogram.getTotalCount();
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public long getEvents() {
+      return events;
+    }
+
+    public double getThroughput() {
+      return seconds == 0 ? 0 : histogram.getTotalCount() / seconds;
+    }
+
+    public long getPercentileMicros(double percentile) {
+      return TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(percentile));
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%-16s count=%d errors=%d events=%d throughput=%.1f/s p50=%dus p90=%dus p99=%dus "
+              + "p99.9=%dus max=%dus", operation, getCount(), errors, events, getThroughput(),
+          getPercentileMicros(50), getPercentileMicros(90), getPercentileMicros(99), getPercentileMicros(99.9),
+          TimeUnit.NANOSECONDS.toMicros(histogram.getMaxValue()));
+    }
+  }
+}
@@ -6,13 +6,19 @@ import lombok.Data;
 @Data
 public class Presence {
 
-  private final Long userId;
-  private final String status;
-  private final Long timestamp;
+  private final long userId;
+  private final PresenceStatus status;
+  private final long timestamp;
+
+  public Presence(long userId, PresenceStatus status, long timestamp) {
+    this.userId = userId;
+    this.status = status;
+    this.timestamp = timestamp;
+  }
 
   public Presence(JsonNode node) {
     userId = node.get("userId").asLong();
-    status = node.get("category").asText();
+    status = PresenceStatus.fromCategory(node.get("category").asText());
     timestamp = node.get("timestamp").asLong();
   }
 }
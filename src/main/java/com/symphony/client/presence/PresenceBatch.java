@@ -0,0 +1,83 @@
+package com.symphony.client.presence;
+
+import java.util.Arrays;
+
+/**
+ * Growable struct-of-arrays holding many presences without a {@link Presence} object per event.
+ *
+ * <p>A batch is meant to be filled, consumed and then {@link #clear() cleared} and reused, so that bulk reads from
+ * {@code readPresenceFeed} and {@code getAllPresence} settle into a steady state with no allocation at all.
+ */
+public class PresenceBatch implements PresenceListener {
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private long[] userIds;
+  private byte[] statuses;
+  private long[] timestamps;
+  private int size;
+
+  public PresenceBatch() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public PresenceBatch(int capacity) {
+    userIds = new long[capacity];
+    statuses = new byte[capacity];
+    timestamps = new long[capacity];
+  }
+
+  public void add(long userId, PresenceStatus status, long timestamp) {
+    if (size == userIds.length) {
+      int capacity = Math.max(DEFAULT_CAPACITY, size * 2);
+      userIds = Arrays.copyOf(userIds, capacity);
+      statuses = Arrays.copyOf(statuses, capacity);
+      timestamps = Arrays.copyOf(timestamps, capacity);
+    }
+    userIds[size] = userId;
+    statuses[size] = status.code();
+    timestamps[size] = timestamp;
+    size++;
+  }
+
+  @Override
+  public void onPresence(Presence presence) {
+    add(presence.getUserId(), presence.getStatus(), presence.getTimestamp());
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public long getUserId(int index) {
+    checkIndex(index);
+    return userIds[index];
+  }
+
+  public PresenceStatus getStatus(int index) {
+    checkIndex(index);
+    return PresenceStatus.fromCode(statuses[index]);
+  }
+
+  public long getTimestamp(int index) {
+    checkIndex(index);
+    return timestamps[index];
+  }
+
+  public Presence toPresence(int index) {
+    return new Presence(getUserId(index), getStatus(index), getTimestamp(index));
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package com.symphony.client.presence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers presence updates and writes them in batches, keeping only the latest update per user.
+ *
+ * <p>Updates for a user that is already pending replace the buffered one when their timestamp is not older
+ * (last-writer-wins), so a user flipping status several times between flushes costs a single request. A batch is
+ * flushed when {@code maxBatchSize} users are pending or every {@code flushIntervalMillis}, and its writes are sent
+ * concurrently through {@link AsyncPresenceApi}. Batches are written one after another so that two writes for the
+ * same user are never on the wire at once and the last update always lands last.
+ *
+ * <p>At most {@code capacity} users may be pending or in flight. Beyond that {@link #offer} returns {@code false} and
+ * {@link #put} blocks until a batch completes.
+ *
+ * <p>The presences confirmed by the pod are kept, with the time their write was sent, until the next {@link #flush()}
+ * hands them out, whichever flush sent them. Only the latest {@code capacity} are kept for callers that never call
+ * {@link #flush()}.
+ */
+@Slf4j
+public class PresenceBatchWriter implements Closeable {
+  public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+  public static final int DEFAULT_CAPACITY = 10000;
+  public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+  private final AsyncPresenceApi api;
+  private final int maxBatchSize;
+  private final int capacity;
+  private final ScheduledExecutorService scheduler;
+
+  private final Object lock = new Object();
+  private Map<String, Update> pending = new LinkedHashMap<>();
+  private int outstanding;
+  private CompletableFuture<Void> lastBatch = CompletableFuture.completedFuture(null);
+  private final ArrayDeque<Confirmation> confirmed = new ArrayDeque<>();
+  private boolean closed;
+
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  public PresenceBatchWriter(AsyncPresenceApi api) {
+    this(api, DEFAULT_MAX_BATCH_SIZE, DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+  }
+
+  public PresenceBatchWriter(AsyncPresenceApi api, int maxBatchSize, int capacity, long flushIntervalMillis) {
+    if (maxBatchSize < 1 || capacity < maxBatchSize) {
+      throw new IllegalArgumentException("Expected 0 < maxBatchSize <= capacity");
+    }
+    this.api = api;
+    this.maxBatchSize = maxBatchSize;
+    this.capacity = capacity;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "presence-batch-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.scheduleWithFixedDelay(this::send, flushIntervalMillis, flushIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Buffers an update stamped with the current time, or returns {@code false} if the buffer is full.
+   */
+  public boolean offer(String userId, String status) {
+    return offer(userId, status, System.currentTimeMillis());
+  }
+
+  public boolean offer(String userId, String status, long timestamp) {
+    boolean flush;
+    synchronized (lock) {
+      checkOpen();
+      if (!pending.containsKey(userId) && outstanding >= capacity) {
+        return false;
+      }
+      flush = enqueue(userId, status, timestamp);
+    }
+    if (flush) {
+      send();
+    }
+    return true;
+  }
+
+  /**
+   * Buffers an update stamped with the current time, waiting for room in the buffer if necessary.
+   */
+  public void put(String userId, String status) throws InterruptedException {
+    put(userId, status, System.currentTimeMillis());
+  }
+
+  public void put(String userId, String status, long timestamp) throws InterruptedException {
+    boolean flush;
+    synchronized (lock) {
+      checkOpen();
+      while (!pending.containsKey(userId) && outstanding >= capacity) {
+        lock.wait();
+        checkOpen();
+      }
+      flush = enqueue(userId, status, timestamp);
+    }
+    if (flush) {
+      send();
+    }
+  }
+
+  /**
+   * Sends everything buffered so far. Once it and every earlier batch have been written, the returned future completes
+   * with all presences confirmed by the pod since the previous call, including those of batches sent by the timer or
+   * because the buffer filled up.
+   */
+  public CompletableFuture<List<Confirmation>> flush() {
+    return send().thenApply(ignored -> {
+      synchronized (lock) {
+        List<Confirmation> confirmations = new ArrayList<>(confirmed);
+        confirmed.clear();
+        return confirmations;
+      }
+    });
+  }
+
+  /**
+   * Flushes outstanding updates, waits for them to be written and stops the flush timer.
+   */
+  @Override
+  public void close() {
+    CompletableFuture<Void> last = send();
+    synchronized (lock) {
+      closed = true;
+      lock.notifyAll();
+    }
+    scheduler.shutdown();
+    last.handle((presences, error) -> null).join();
+  }
+
+  public long getSubmitted() {
+    return submitted.get();
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  public long getWritten() {
+    return written.get();
+  }
+
+  public long getFailed() {
+    return failed.get();
+  }
+
+  public int getOutstanding() {
+    synchronized (lock) {
+      return outstanding;
+    }
+  }
+
+  /**
+   * Sends everything buffered so far, after the previous batch.
+   */
+  private CompletableFuture<Void> send() {
+    Map<String, Update> batch;
+    CompletableFuture<Void> result;
+    synchronized (lock) {
+      if (pending.isEmpty()) {
+        return lastBatch;
+      }
+      batch = pending;
+      pending = new LinkedHashMap<>();
+      result = lastBatch.handle((previous, error) -> null).thenCompose(ignored -> write(batch));
+      lastBatch = result;
+    }
+    return result;
+  }
+
+  private boolean enqueue(String userId, String status, long timestamp) {
+    submitted.incrementAndGet();
+    Update previous = pending.get(userId);
+    if (previous == null) {
+      pending.put(userId, new Update(userId, status, timestamp));
+      outstanding++;
+    } else {
+      coalesced.incrementAndGet();
+      if (timestamp >= previous.timestamp) {
+        pending.put(userId, new Update(userId, status, timestamp));
+      }
+    }
+    return pending.size() >= maxBatchSize;
+  }
+
+  private CompletableFuture<Void> write(Map<String, Update> batch) {
+    List<CompletableFuture<Presence>> writes = new ArrayList<>(batch.size());
+    for (Update update : batch.values()) {
+      long sendNanos = System.nanoTime();
+      writes.add(api.setPresence(update.userId, update.status).whenComplete((presence, error) -> {
+        if (error != null) {
+          failed.incrementAndGet();
+          log.warn("Failed to set presence of user {} to {}", update.userId, update.status, error);
+        } else {
+          written.incrementAndGet();
+        }
+        release(error == null ? new Confirmation(presence, sendNanos) : null);
+      }));
+    }
+
+    return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).handle((ignored, error) -> null);
+  }
+
+  private void release(Confirmation confirmation) {
+    synchronized (lock) {
+      outstanding--;
+      if (confirmation != null) {
+        if (confirmed.size() >= capacity) {
+          confirmed.pollFirst();
+        }
+        confirmed.addLast(confirmation);
+      }
+      lock.notifyAll();
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Writer is closed");
+    }
+  }
+
+  /**
+   * A presence confirmed by the pod and the {@link System#nanoTime()} at which its write was sent.
+   */
+  public static final class Confirmation {
+    private final Presence presence;
+    private final long sendNanos;
+
+    Confirmation(Presence presence, long sendNanos) {
+      this.presence = presence;
+      this.sendNanos = sendNanos;
+    }
+
+    public Presence getPresence() {
+      return presence;
+    }
+
+    public long getSendNanos() {
+      return sendNanos;
+    }
+  }
+
+  private static class Update {
+    private final String userId;
+    private final String status;
+    private final long timestamp;
+
+    private Update(String userId, String status, long timestamp) {
+      this.userId = userId;
+      this.status = status;
+      this.timestamp = timestamp;
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.Api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.security.cert.CertificateParsingException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory view of user presences, keyed by the primitive user id.
+ *
+ * <p>Entries live in an open-addressing table with linear probing. Lookups walk the published table without locking
+ * or allocating; writers are serialized and publish immutable entries, resizing into a fresh table when it fills up.
+ * Entries expire {@code ttlMillis} after they were written. When {@code maxSize} is reached, expired entries are
+ * dropped first, then the entry closest to expiry among a small sample.
+ *
+ * <p>The cache is seeded with {@link #load(Api, int)} and kept fresh by registering it as a {@link PresenceListener}
+ * on a presence feed; older events never overwrite newer ones.
+ */
+@Slf4j
+public class PresenceCache implements PresenceListener {
+  public static final int DEFAULT_MAX_SIZE = 100000;
+  public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  private static final Entry TOMBSTONE = new Entry(0, null, 0);
+  private static final int EVICTION_SAMPLE = 8;
+  private static final int EVICTION_WINDOW = 64;
+
+  private final int maxSize;
+  private final long ttlNanos;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private volatile AtomicReferenceArray<Entry> table;
+  private int size;
+  private int used;
+  private int evictionCursor;
+
+  public PresenceCache() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+  }
+
+  public PresenceCache(int maxSize, long ttlMillis) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    this.table = new AtomicReferenceArray<>(capacityFor(Math.min(maxSize, 1024)));
+  }
+
+  /**
+   * Returns the cached presence of a user, or {@code null} if it is unknown or expired.
+   */
+  public Presence get(long userId) {
+    AtomicReferenceArray<Entry> slots = table;
+    int mask = slots.length() - 1;
+    for (int i = hash(userId) & mask; ; i = (i + 1) & mask) {
+      Entry entry = slots.get(i);
+      if (entry == null) {
+        break;
+      }
+      if (entry != TOMBSTONE && entry.userId == userId) {
+        if (entry.expiresAt - System.nanoTime() > 0) {
+          hits.increment();
+          return entry.presence;
+        }
+        break;
+      }
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * Stores a presence unless a newer one is already cached for the same user.
+   */
+  public synchronized void put(Presence presence) {
+    long userId = presence.getUserId();
+    long expiresAt = System.nanoTime() + ttlNanos;
+    AtomicReferenceArray<Entry> slots = table;
+    int mask = slots.length() - 1;
+    int free = -1;
+
+    for (int i = hash(userId) & mask; ; i = (i + 1) & mask) {
+      Entry entry = slots.get(i);
+      if (entry == null) {
+        break;
+      }
+      if (entry == TOMBSTONE) {
+        if (free < 0) {
+          free = i;
+        }
+      } else if (entry.userId == userId) {
+        if (entry.presence.getTimestamp() <= presence.getTimestamp()) {
+          slots.set(i, new Entry(userId, presence, expiresAt));
+        }
+        return;
+      }
+    }
+
+    if (size >= maxSize) {
+      evict();
+      put(presence);
+      return;
+    }
+    if (free < 0 && (used + 1) * 4 > slots.length() * 3) {
+      resize();
+      put(presence);
+      return;
+    }
+
+    if (free < 0) {
+      free = probeEmpty(slots, userId);
+      used++;
+    }
+    slots.set(free, new Entry(userId, presence, expiresAt));
+    size++;
+  }
+
+  public synchronized void invalidate(long userId) {
+    AtomicReferenceArray<Entry> slots = table;
+    int mask = slots.length() - 1;
+    for (int i = hash(userId) & mask; ; i = (i + 1) & mask) {
+      Entry entry = slots.get(i);
+      if (entry == null) {
+        return;
+      }
+      if (entry != TOMBSTONE && entry.userId == userId) {
+        slots.set(i, TOMBSTONE);
+        size--;
+        return;
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    table = new AtomicReferenceArray<>(table.length());
+    size = 0;
+    used = 0;
+  }
+
+  @Override
+  public void onPresence(Presence presence) {
+    put(presence);
+  }
+
+  /**
+   * Seeds the cache by paging through every presence on the pod.
+   *
+   * @return the number of presences loaded
+   */
+  public long load(Api api, int pageSize) throws IOException, CertificateParsingException {
+    long lastUserId = 0;
+    long loaded = 0;
+    List<Presence> page;
+
+    do {
+      page = PresenceResponses.toPresences(api.getAllPresence(lastUserId, pageSize));
+      for (Presence presence : page) {
+        put(presence);
+        lastUserId = presence.getUserId();
+      }
+      loaded += page.size();
+    } while (page.size() >= pageSize);
+
+    log.info("Loaded {} presences into cache", loaded);
+    return loaded;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Scans a window of slots after the eviction cursor, dropping expired entries. If none had expired, the entry closest
+   * to expiry among the first few live ones seen is dropped instead.
+   */
+  private void evict() {
+    AtomicReferenceArray<Entry> slots = table;
+    int mask = slots.length() - 1;
+    long now = System.nanoTime();
+    int removed = 0;
+    int victim = -1;
+    int sampled = 0;
+
+    for (int scanned = 0; scanned < EVICTION_WINDOW || (removed == 0 && sampled == 0); scanned++) {
+      int i = evictionCursor;
+      evictionCursor = (i + 1) & mask;
+      Entry entry = slots.get(i);
+      if (entry == null || entry == TOMBSTONE) {
+        continue;
+      }
+      if (entry.expiresAt - now <= 0) {
+        slots.set(i, TOMBSTONE);
+        removed++;
+      } else if (sampled < EVICTION_SAMPLE) {
+        if (victim < 0 || entry.expiresAt - slots.get(victim).expiresAt < 0) {
+          victim = i;
+        }
+        sampled++;
+      }
+    }
+
+    if (removed == 0) {
+      slots.set(victim, TOMBSTONE);
+      removed = 1;
+    }
+
+    size -= removed;
+    evictions.add(removed);
+  }
+
+  private void resize() {
+    AtomicReferenceArray<Entry> slots = table;
+    int capacity = size * 4 > slots.length() ? slots.length() * 2 : slots.length();
+    AtomicReferenceArray<Entry> resized = new AtomicReferenceArray<>(capacity);
+
+    for (int i = 0; i < slots.length(); i++) {
+      Entry entry = slots.get(i);
+      if (entry != null && entry != TOMBSTONE) {
+        resized.set(probeEmpty(resized, entry.userId), entry);
+      }
+    }
+
+    table = resized;
+    used = size;
+  }
+
+  private static int probeEmpty(AtomicReferenceArray<Entry> slots, long userId) {
+    int mask = slots.length() - 1;
+    int i = hash(userId) & mask;
+    while (slots.get(i) != null) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private static int capacityFor(int entries) {
+    int capacity = 16;
+    while (capacity * 3 < entries * 4) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  static int hash(long userId) {
+    long h = userId * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static final class Entry {
+    private final long userId;
+    private final Presence presence;
+    private final long expiresAt;
+
+    private Entry(long userId, Presence presence, long expiresAt) {
+      this.userId = userId;
+      this.presence = presence;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.symphony.client.presence;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes presences straight from JSON text with a streaming {@link JsonParser}, without building a tree.
+ *
+ * <p>Status categories are matched against the parser's character buffer and mapped to {@link PresenceStatus}, so
+ * decoding a feed does not allocate a status string per event. Decoding into a {@link PresenceBatch} does not allocate
+ * per event at all.
+ */
+public final class PresenceCodec {
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private PresenceCodec() {
+  }
+
+  /**
+   * Decodes a single presence object.
+   */
+  public static Presence decode(String json) throws IOException {
+    try (JsonParser parser = JSON.createParser(json)) {
+      expect(parser.nextToken(), JsonToken.START_OBJECT);
+      Presence[] presence = new Presence[1];
+      readPresence(parser, (userId, status, timestamp) -> presence[0] = new Presence(userId, status, timestamp));
+      return presence[0];
+    }
+  }
+
+  /**
+   * Decodes an array of presence objects.
+   */
+  public static List<Presence> decodeAll(String json) throws IOException {
+    List<Presence> presences = new ArrayList<>();
+    decodeAll(json, presences::add);
+    return presences;
+  }
+
+  /**
+   * Decodes an array of presence objects, handing each one to {@code listener} as soon as it is parsed.
+   *
+   * @return the number of presences decoded
+   */
+  public static int decodeAll(String json, PresenceListener listener) throws IOException {
+    return decodeAll(json, (userId, status, timestamp) -> listener.onPresence(new Presence(userId, status, timestamp)));
+  }
+
+  /**
+   * Appends an array of presence objects to {@code batch}.
+   *
+   * @return the number of presences decoded
+   */
+  public static int decodeAll(String json, PresenceBatch batch) throws IOException {
+    return decodeAll(json, batch::add);
+  }
+
+  private static int decodeAll(String json, Sink sink) throws IOException {
+    int count = 0;
+    try (JsonParser parser = JSON.createParser(json)) {
+      expect(parser.nextToken(), JsonToken.START_ARRAY);
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        readPresence(parser, sink);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static void readPresence(JsonParser parser, Sink sink) throws IOException {
+    long userId = 0;
+    long timestamp = 0;
+    PresenceStatus status = PresenceStatus.UNKNOWN;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "userId":
+          userId = parser.getValueAsLong();
+          break;
+        case "timestamp":
+          timestamp = parser.getValueAsLong();
+          break;
+        case "category":
+          if (value == JsonToken.VALUE_STRING) {
+            status = PresenceStatus.fromCategory(parser.getTextCharacters(), parser.getTextOffset(),
+                parser.getTextLength());
+          }
+          break;
+        default:
+          if (value.isStructStart()) {
+            parser.skipChildren();
+          }
+      }
+    }
+
+    sink.accept(userId, status, timestamp);
+  }
+
+  private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw new IOException("Expected " + expected + " but got " + actual);
+    }
+  }
+
+  private interface Sink {
+    void accept(long userId, PresenceStatus status, long timestamp);
+  }
+}
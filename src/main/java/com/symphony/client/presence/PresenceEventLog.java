@@ -0,0 +1,64 @@
+package com.symphony.client.presence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact, optionally sampled log of individual presence events, written to the {@value #LOGGER} logger so it can be
+ * routed to its own asynchronous appender.
+ *
+ * <p>Each line is {@code <kind> <feed> u=<userId> s=<status> t=<timestamp>}. With a sample rate of {@code n} only
+ * every {@code n}-th event is formatted and logged; the others cost one counter increment. Nothing is formatted when
+ * the logger is disabled.
+ */
+public class PresenceEventLog {
+  public static final String LOGGER = "com.symphony.client.presence.events";
+
+  private static final Logger log = LoggerFactory.getLogger(LOGGER);
+
+  private final int sampleRate;
+  private final AtomicLong events = new AtomicLong();
+
+  public PresenceEventLog() {
+    this(1);
+  }
+
+  /**
+   * @param sampleRate log one event out of this many
+   */
+  public PresenceEventLog(int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("sampleRate must be positive");
+    }
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * Reads the sample rate from the {@code events.sample} system property.
+   */
+  public static PresenceEventLog fromSystemProperties() {
+    return new PresenceEventLog(Integer.getInteger("events.sample", 1));
+  }
+
+  public void set(Presence presence) {
+    event("SET", "-", presence);
+  }
+
+  public void received(String feedId, Presence presence) {
+    event("GET", feedId, presence);
+  }
+
+  public long getEvents() {
+    return events.get();
+  }
+
+  private void event(String kind, String feed, Presence presence) {
+    long count = events.incrementAndGet();
+    if ((sampleRate == 1 || count % sampleRate == 0) && log.isInfoEnabled()) {
+      log.info("{} {} u={} s={} t={}", kind, feed, presence.getUserId(), presence.getStatus(),
+          presence.getTimestamp());
+    }
+  }
+}
@@ -2,66 +2,96 @@ package com.symphony.client.presence;
 
 import com.symphony.client.Api;
 import com.symphony.client.Client;
+import com.symphony.client.PooledTransport;
+import com.symphony.client.Transport;
+import com.symphony.client.metrics.MetricsReporter;
+import com.symphony.client.metrics.PrometheusExporter;
+import com.symphony.client.provision.ProvisionConfig;
+import com.symphony.client.provision.UserProvisioner;
+import com.symphony.client.provision.UserSpec;
+import com.symphony.client.resilience.ResilienceConfig;
+import com.symphony.client.resilience.ResilientTransport;
+import com.symphony.client.scenario.Scenario;
+import com.symphony.client.scenario.ScenarioRunner;
+import com.symphony.client.stub.StubPod;
+import com.symphony.client.stub.StubPodConfig;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 import org.symphonyoss.symphony.jcurl.JCurl;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.security.cert.CertificateParsingException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class PresenceFeedClient {
 
   private static final String[] STATUSES = new String[] {"AVAILABLE", "AWAY", "BUSY", "ON_THE_PHONE", "BE_RIGHT_BACK",
       "IN_A_MEETING", "OUT_OF_OFFICE", "OFF_WORK", "OFFLINE"};
-  private static final Random RND = new Random();
+  private static final Random RND = Long.getLong("seed") != null ? new Random(Long.getLong("seed")) : new Random();
+  private static final long FEED_TIMEOUT_MILLIS = 3000;
 
   private final String[] users;
   private final Api api;
+  private final AsyncPresenceApi asyncApi;
+  private final PresenceBatchWriter batchWriter;
   private final String feedId;
+  private final PresenceFeedStream feedStream;
+  private final BlockingQueue<Presence> feedEvents = new LinkedBlockingQueue<>();
+  private final PropagationTracker tracker = new PropagationTracker();
+  private final PresenceCache presences = new PresenceCache();
+  private final UserInfoCache userInfo;
+  private final PresenceEventLog eventLog = PresenceEventLog.fromSystemProperties();
 
   public PresenceFeedClient(Client client, String[] users) throws IOException, CertificateParsingException {
     this.users = users;
 
     client.auth();
     this.api = new Api(client);
+    this.asyncApi = new AsyncPresenceApi(api, AsyncPresenceApi.DEFAULT_MAX_IN_FLIGHT,
+        AsyncPresenceApi.DEFAULT_MAX_QUEUED, Boolean.getBoolean("virtualThreads"));
+    this.batchWriter = new PresenceBatchWriter(asyncApi);
+    this.userInfo = new UserInfoCache(asyncApi, client.getMetrics().cache("userInfo"));
 
     JCurl.Response response = api.createPresenceFeed();
-    checkResponse(response);
+    PresenceResponses.checkResponse(response);
     this.feedId = response.getTag("id");
 
     log.info("Feed id: {}", feedId);
-  }
 
-  private Presence setPresence(String userId, String status) throws IOException, CertificateParsingException {
-    JCurl.Response response = api.setPresence(userId, status);
-    checkResponse(response);
-    return new Presence(response.getJsonNode());
+    this.feedStream = new PresenceFeedStream(api, feedId);
+    this.feedStream.addListener(presences);
   }
 
-
-  private List<Presence> readPresenceFeed() throws IOException, CertificateParsingException {
-    JCurl.Response response = api.readPresenceFeed(feedId);
-    checkResponse(response);
-    List<Presence> presences = new ArrayList<>();
-    for (JsonNode node : response.getJsonNode()) {
-      presences.add(new Presence(node));
-    }
+  /**
+   * Latest known presence per user: seeded from the journal, if any, and kept current by the feed.
+   */
+  public PresenceCache getPresences() {
     return presences;
   }
 
-  private void checkResponse(JCurl.Response response) throws InternalError {
-    int status = response.getResponseCode();
-    if (status != 200) {
-      log.error(response.getOutput());
-      throw new InternalError("Response returned code " + status);
-    }
+  private int drainPresenceFeed() throws IOException, CertificateParsingException {
+    return PresenceResponses.toBatch(api.readPresenceFeed(feedId), new PresenceBatch());
+  }
+
+  private String displayName(long userId) {
+    JsonNode info = userInfo.getIfPresent(userId);
+    return info == null ? String.valueOf(userId) : info.path("displayName").asText(String.valueOf(userId));
   }
 
   private static String getRandomElement(String[] array) {
@@ -72,17 +102,30 @@ public class PresenceFeedClient {
   private void warmup(int iterations) throws IOException, CertificateParsingException {
     log.info("===== Warmup =====");
 
+    List<CompletableFuture<Presence>> updates = new ArrayList<>();
     for (int i = 0; i < iterations; i++) {
-      setPresence(getRandomElement(users), getRandomElement(STATUSES));
+      updates.add(asyncApi.setPresence(getRandomElement(users), getRandomElement(STATUSES)));
     }
+    CompletableFuture.allOf(updates.toArray(new CompletableFuture[0])).join();
 
-    readPresenceFeed();
+    // Looked up here, before anything is measured, so warnings during the test can name the users
+    List<CompletableFuture<JsonNode>> lookups = new ArrayList<>(users.length);
+    for (String user : users) {
+      lookups.add(userInfo.get(Long.parseLong(user)).exceptionally(failure -> null));
+    }
+    CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).join();
+
+    drainPresenceFeed();
   }
 
   private void test(int iterations, int maxSetPresenceEvents)
       throws IOException, CertificateParsingException, InterruptedException {
     log.info("===== Test =====");
 
+    feedStream.addListener(feedEvents::add);
+    feedStream.addListener(tracker);
+    feedStream.start();
+
     for (int i = 0; i < iterations; i++) {
       log.info("--- Iteration {} ---", i + 1);
       Map<Long, Presence> testData = new HashMap<>();
@@ -91,21 +134,41 @@ public class PresenceFeedClient {
         String user = getRandomElement(users);
         String status = getRandomElement(STATUSES);
 
-        Presence p = setPresence(user, status);
-        log.info("[{}] SET user {} to {}", p.getTimestamp(), p.getUserId(), p.getStatus());
+        batchWriter.put(user, status);
+      }
+
+      for (PresenceBatchWriter.Confirmation confirmation : batchWriter.flush().join()) {
+        Presence p = confirmation.getPresence();
+        eventLog.set(p);
         testData.put(p.getUserId(), p);
+        tracker.sent(confirmation.getSendNanos(), p);
       }
 
-      Thread.sleep(3000);
+      Set<Long> pending = new HashSet<>(testData.keySet());
+      long deadline = System.currentTimeMillis() + FEED_TIMEOUT_MILLIS;
+
+      while (!pending.isEmpty()) {
+        Presence p = feedEvents.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        if (p == null) {
+          List<String> names = new ArrayList<>(pending.size());
+          for (Long userId : pending) {
+            names.add(displayName(userId));
+          }
+          log.warn("No feed event for users {} after {} ms", names, FEED_TIMEOUT_MILLIS);
+          break;
+        }
 
-      for (Presence p : readPresenceFeed()) {
-        log.info("GET feed {}: User {} was {} at {}", feedId, p.getUserId(), p.getStatus(), p.getTimestamp());
+        eventLog.received(feedStream.getFeedId(), p);
         Presence savedPresence = testData.get(p.getUserId());
         if (!p.equals(savedPresence)) {
-          log.warn("Presence mismatch! Wanted {}, got {}", savedPresence, p);
+          log.warn("Presence mismatch for {}! Wanted {}, got {}", displayName(p.getUserId()), savedPresence, p);
+        } else {
+          pending.remove(p.getUserId());
         }
       }
     }
+
+    log.info("{}", tracker.result());
   }
 
   public static void main(String[] args) throws IOException, CertificateParsingException, InterruptedException {
@@ -120,16 +183,139 @@ public class PresenceFeedClient {
     String[] users = new String[] {"9414568312885", "9414568312912", "9414568314259", "9414568314266", "9414568314273",
         "9414568312920", "9414568312907", "9414568312926", "9414568314256"};
 
-    Client apiClient = new Client(podUrl, agentUrl, sessionAuthUrl, keyAuthUrl, certFile, certPassword);
+    // Connection settings use the keys of Client.fromConfig, from -Dconfig=<file> or the scenario file
+    Scenario scenario = null;
+    Properties settings = new Properties();
+    if (args.length > 1 && "scenario".equals(args[0])) {
+      scenario = Scenario.load(Paths.get(args[1]));
+      settings = scenario.getProperties();
+    } else if (System.getProperty("config") != null) {
+      try (InputStream is = Files.newInputStream(Paths.get(System.getProperty("config")))) {
+        settings.load(is);
+      }
+    }
+    podUrl = settings.getProperty("POD_URL", podUrl);
+    agentUrl = settings.getProperty("AGENT_URL", agentUrl);
+    sessionAuthUrl = settings.getProperty("SESSION_AUTH_URL", sessionAuthUrl);
+    keyAuthUrl = settings.getProperty("KEY_AUTH_URL", keyAuthUrl);
+    if (settings.getProperty("CERT_PATH") != null) {
+      certFile = Paths.get(settings.getProperty("CERT_PATH"),
+          settings.getProperty("CERT_NAME", Paths.get(certFile).getFileName().toString())).toString();
+    }
+    certPassword = settings.getProperty("CERT_PASSWORD", certPassword);
+
+    String usersFile = System.getProperty("users.file");
+    if (usersFile != null) {
+      users = UserProvisioner.readUserIds(Paths.get(usersFile)).toArray(new String[0]);
+    }
+
+    StubPod stubPod = null;
+    MetricsReporter reporter = null;
+    PrometheusExporter exporter = null;
+    try {
+      if (Boolean.getBoolean("stub")) {
+        stubPod = new StubPod(StubPodConfig.fromProperties(System.getProperties())).start();
+        podUrl = agentUrl = sessionAuthUrl = keyAuthUrl = stubPod.getUrl();
+      }
+
+      Transport transport = new PooledTransport();
+      if (Boolean.getBoolean("resilience")) {
+        transport = new ResilientTransport(transport, ResilienceConfig.fromProperties(System.getProperties()));
+      }
+
+      Client apiClient = new Client(podUrl, agentUrl, sessionAuthUrl, keyAuthUrl, certFile, certPassword, transport);
+
+      String metricsFile = System.getProperty("metrics.json");
+      reporter = new MetricsReporter(apiClient.getMetrics(), metricsFile == null ? null : Paths.get(metricsFile));
+      reporter.start(10, TimeUnit.SECONDS);
+
+      String metricsPort = System.getProperty("metrics.port");
+      if (metricsPort != null) {
+        exporter = new PrometheusExporter(apiClient.getMetrics(), Integer.parseInt(metricsPort));
+        exporter.start();
+      }
+
+      String mode = args.length > 0 ? args[0] : "";
+      if ("provision".equals(mode)) {
+        provision(apiClient);
+      } else if (scenario != null) {
+        apiClient.auth();
+        new ScenarioRunner(apiClient.getApi(), Paths.get(System.getProperty("results", "results"))).run(scenario);
+      } else if ("load".equals(mode)) {
+        load(apiClient, users);
+      } else {
+        feedTest(apiClient, users);
+      }
+    } finally {
+      if (exporter != null) {
+        exporter.close();
+      }
+      if (reporter != null) {
+        reporter.close();
+      }
+      if (stubPod != null) {
+        stubPod.close();
+      }
+    }
+  }
+
+  private static void provision(Client apiClient)
+      throws IOException, CertificateParsingException, InterruptedException {
+    ProvisionConfig provisionConfig = ProvisionConfig.fromProperties(System.getProperties());
+    if (provisionConfig.getInput() == null) {
+      throw new IllegalArgumentException("provision.input is required");
+    }
+    apiClient.auth();
+    new UserProvisioner(apiClient.getApi(), provisionConfig).provision(
+        UserSpec.read(Paths.get(provisionConfig.getInput())), Paths.get(provisionConfig.getOutput()));
+  }
+
+  private static void load(Client apiClient, String[] users)
+      throws IOException, CertificateParsingException, InterruptedException {
+    apiClient.auth();
+    LoadConfig loadConfig = LoadConfig.fromProperties(System.getProperties());
+    if (loadConfig.getExecutor() == LoadConfig.Executor.COMPARE) {
+      LoadGenerator.compare(apiClient.getApi(), users, loadConfig);
+    } else {
+      new LoadGenerator(apiClient.getApi(), users, loadConfig).run();
+    }
+  }
+
+  private static void feedTest(Client apiClient, String[] users)
+      throws IOException, CertificateParsingException, InterruptedException {
     PresenceFeedClient presenceClient = new PresenceFeedClient(apiClient, users);
+    PresenceJournal journal = null;
+    try {
+      Integer catchUpThreshold = Integer.getInteger("feed.catchUp");
+      if (catchUpThreshold != null) {
+        presenceClient.feedStream.setCatchUp(catchUpThreshold, Runtime.getRuntime().availableProcessors());
+      }
+
+      String journalDir = System.getProperty("journal");
+      if (journalDir != null) {
+        journal = new PresenceJournal(Paths.get(journalDir));
+        long replayed = journal.replay(presenceClient.presences);
+        log.info("Replayed {} journaled presences for {} users", replayed, presenceClient.presences.size());
+        presenceClient.feedStream.addListener(journal);
+      }
 
-    int warmupIterations = 100;
-    int testIterations = 10;
-    int maxSetPresenceEvents = 20;
+      int warmupIterations = Integer.getInteger("feed.warmup", 100);
+      int testIterations = Integer.getInteger("feed.iterations", 10);
+      int maxSetPresenceEvents = Integer.getInteger("feed.maxEvents", 20);
 
-    // ***** Main logic *****
-    presenceClient.warmup(warmupIterations);
-    presenceClient.test(testIterations, maxSetPresenceEvents);
+      // ***** Main logic *****
+      presenceClient.warmup(warmupIterations);
+      presenceClient.test(testIterations, maxSetPresenceEvents);
+      log.info("Presences known for {} users", presenceClient.presences.size());
+    } finally {
+      presenceClient.feedStream.close();
+      if (journal != null) {
+        journal.compact();
+        journal.close();
+      }
+      presenceClient.batchWriter.close();
+      presenceClient.asyncApi.close();
+    }
   }
 
 }
@@ -0,0 +1,337 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.Api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.cert.CertificateParsingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads a presence feed back-to-back on a dedicated thread and hands every event to the registered listeners.
+ *
+ * <p>A read that returns events is immediately followed by the next one. Empty reads and errors back off
+ * exponentially from {@code minBackoffMillis} to {@code maxBackoffMillis}; the backoff resets as soon as events flow
+ * again. When the pod reports that the feed no longer exists (404 or 410) it is re-created with
+ * {@link Api#createPresenceFeed()} and reading continues on the new feed, still backing off until events arrive.
+ *
+ * <p>Events are normally delivered one by one on the reading thread. With {@link #setCatchUp(int, int)} a read that
+ * returns a backlog (after a stall or an outage) is split into per-partition lists by user id, and the partitions are
+ * delivered in parallel. Each user's events stay in order, and the next read only starts once the backlog has been
+ * delivered; as soon as reads are small again delivery goes back to the reading thread. Only delivery is parallel:
+ * the response is fully buffered by {@code getOutput()} and decoded on the reading thread first. A listener that
+ * throws is logged and skipped for that event; the other listeners and partitions carry on. Listeners must be
+ * thread-safe when catch-up is enabled.
+ */
+@Slf4j
+public class PresenceFeedStream implements Closeable {
+  public static final long DEFAULT_MIN_BACKOFF_MILLIS = 10;
+  public static final long DEFAULT_MAX_BACKOFF_MILLIS = 500;
+  public static final int DEFAULT_CATCH_UP_THRESHOLD = 5000;
+
+  /**
+   * How long {@link #close()} waits for the reading thread, which may be blocked in a socket read that ignores
+   * interrupts.
+   */
+  private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+  private final Api api;
+  private final long minBackoffMillis;
+  private final long maxBackoffMillis;
+  private final List<PresenceListener> listeners = new CopyOnWriteArrayList<>();
+
+  private final AtomicLong reads = new AtomicLong();
+  private final AtomicLong emptyReads = new AtomicLong();
+  private final AtomicLong events = new AtomicLong();
+  private final AtomicLong feedsCreated = new AtomicLong();
+  private final AtomicLong catchUps = new AtomicLong();
+  private final AtomicLong catchUpEvents = new AtomicLong();
+
+  private int catchUpThreshold;
+  private ThreadPoolExecutor catchUpExecutor;
+  private long catchUpStartNanos;
+  private long catchUpEpisodeEvents;
+  private volatile long lastCatchUpMillis;
+
+  private volatile String feedId;
+  private volatile boolean running;
+  private Thread thread;
+
+  public PresenceFeedStream(Api api, String feedId) {
+    this(api, feedId, DEFAULT_MIN_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+  }
+
+  /**
+   * @param feedId feed to read from, or {@code null} to create one when the stream starts
+   */
+  public PresenceFeedStream(Api api, String feedId, long minBackoffMillis, long maxBackoffMillis) {
+    this.api = api;
+    this.feedId = feedId;
+    this.minBackoffMillis = minBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+  }
+
+  public void addListener(PresenceListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(PresenceListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Delivers reads of at least {@code thresholdEvents} events on {@code parallelism} threads. Must be called before
+   * {@link #start()}.
+   */
+  public synchronized void setCatchUp(int thresholdEvents, int parallelism) {
+    if (running) {
+      throw new IllegalStateException("Catch-up must be configured before the stream starts");
+    }
+    if (thresholdEvents < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("thresholdEvents and parallelism must be positive");
+    }
+    if (catchUpExecutor != null) {
+      catchUpExecutor.shutdown();
+    }
+    catchUpThreshold = thresholdEvents;
+    catchUpExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), new ThreadFactory() {
+          private final AtomicInteger count = new AtomicInteger();
+
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "presence-catch-up-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    catchUpExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  public synchronized void start() throws IOException, CertificateParsingException {
+    if (running) {
+      return;
+    }
+    if (feedId == null) {
+      createFeed();
+    }
+
+    running = true;
+    thread = new Thread(this::run, "presence-feed-" + feedId);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    thread.interrupt();
+    try {
+      thread.join(CLOSE_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (thread.isAlive()) {
+      log.warn("Presence feed {} reader did not stop within {} ms", feedId, CLOSE_TIMEOUT_MILLIS);
+    }
+    if (catchUpExecutor != null) {
+      catchUpExecutor.shutdown();
+    }
+  }
+
+  public String getFeedId() {
+    return feedId;
+  }
+
+  public long getReads() {
+    return reads.get();
+  }
+
+  public long getEmptyReads() {
+    return emptyReads.get();
+  }
+
+  public long getEvents() {
+    return events.get();
+  }
+
+  public long getFeedsCreated() {
+    return feedsCreated.get();
+  }
+
+  /**
+   * Reads delivered in parallel because they held a backlog.
+   */
+  public long getCatchUps() {
+    return catchUps.get();
+  }
+
+  public long getCatchUpEvents() {
+    return catchUpEvents.get();
+  }
+
+  /**
+   * Time from the first backlogged read to the first normal read after it, for the last completed catch-up.
+   */
+  public long getLastCatchUpMillis() {
+    return lastCatchUpMillis;
+  }
+
+  private void run() {
+    long backoff = 0;
+
+    while (running) {
+      try {
+        if (backoff > 0) {
+          Thread.sleep(backoff);
+        }
+
+        JCurl.Response response = api.readPresenceFeed(feedId);
+        reads.incrementAndGet();
+
+        int status = response.getResponseCode();
+        if (status == 200) {
+          List<Presence> presences = PresenceCodec.decodeAll(response.getOutput());
+          if (catchUpThreshold > 0 && presences.size() >= catchUpThreshold) {
+            backoff = 0;
+            catchUp(presences);
+            continue;
+          }
+          if (catchUpStartNanos != 0) {
+            caughtUp();
+          }
+          if (presences.isEmpty()) {
+            emptyReads.incrementAndGet();
+            backoff = increase(backoff);
+          } else {
+            backoff = 0;
+            events.addAndGet(presences.size());
+            deliver(presences);
+          }
+        } else if (isFeedGone(status)) {
+          log.warn("Presence feed {} is gone (code {}), creating a new one", feedId, status);
+          createFeed();
+          // Keeps backing off if new feeds keep disappearing; the next read with events resets it
+          backoff = increase(backoff);
+        } else {
+          log.error("Reading presence feed {} returned code {}: {}", feedId, status, response.getOutput());
+          backoff = increase(backoff);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (IOException | CertificateParsingException | RuntimeException | InternalError e) {
+        if (!running) {
+          break;
+        }
+        log.error("Failed to read presence feed {}", feedId, e);
+        backoff = increase(backoff);
+      }
+    }
+  }
+
+  /**
+   * Splits a backlog into per-user partitions and delivers them in parallel, returning once all are delivered.
+   */
+  @SuppressWarnings("unchecked")
+  private void catchUp(List<Presence> presences) throws InterruptedException {
+    long start = System.nanoTime();
+    int parallelism = catchUpExecutor.getCorePoolSize();
+    List<Presence>[] partitions = new List[parallelism];
+    int expected = presences.size() / parallelism + 1;
+    for (int i = 0; i < parallelism; i++) {
+      partitions[i] = new ArrayList<>(expected);
+    }
+    for (Presence presence : presences) {
+      partitions[partitionOf(presence.getUserId())].add(presence);
+    }
+    int count = presences.size();
+
+    if (catchUpStartNanos == 0) {
+      catchUpStartNanos = start;
+      catchUpEpisodeEvents = 0;
+      log.info("Presence feed {} returned a backlog of {} events, catching up on {} threads", feedId, count,
+          parallelism);
+    }
+    catchUps.incrementAndGet();
+    catchUpEvents.addAndGet(count);
+    events.addAndGet(count);
+    catchUpEpisodeEvents += count;
+
+    List<Future<?>> deliveries = new ArrayList<>(parallelism);
+    for (List<Presence> partition : partitions) {
+      if (!partition.isEmpty()) {
+        deliveries.add(catchUpExecutor.submit(() -> deliver(partition)));
+      }
+    }
+    for (Future<?> delivery : deliveries) {
+      try {
+        delivery.get();
+      } catch (ExecutionException e) {
+        log.error("Catch-up delivery failed", e.getCause());
+      }
+    }
+  }
+
+  private void caughtUp() {
+    lastCatchUpMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - catchUpStartNanos);
+    log.info("Presence feed {} caught up: {} events in {} ms", feedId, catchUpEpisodeEvents, lastCatchUpMillis);
+    catchUpStartNanos = 0;
+  }
+
+  private int partitionOf(long userId) {
+    long h = userId * 0x9E3779B97F4A7C15L;
+    return (int) ((h ^ (h >>> 32)) & Integer.MAX_VALUE) % catchUpExecutor.getCorePoolSize();
+  }
+
+  private void deliver(List<Presence> presences) {
+    for (Presence presence : presences) {
+      for (PresenceListener listener : listeners) {
+        try {
+          listener.onPresence(presence);
+        } catch (Throwable t) {
+          log.error("Presence listener failed on {}", presence, t);
+        }
+      }
+    }
+  }
+
+  private void createFeed() throws IOException, CertificateParsingException {
+    JCurl.Response response = api.createPresenceFeed();
+    PresenceResponses.checkResponse(response);
+    feedId = response.getTag("id");
+    feedsCreated.incrementAndGet();
+    log.info("Feed id: {}", feedId);
+  }
+
+  private long increase(long backoff) {
+    return increase(backoff, minBackoffMillis, maxBackoffMillis);
+  }
+
+  /**
+   * Returns the backoff after another empty read or error: {@code min} at first, then doubling up to {@code max}.
+   */
+  static long increase(long backoff, long min, long max) {
+    return backoff == 0 ? min : Math.min(backoff * 2, max);
+  }
+
+  private static boolean isFeedGone(int status) {
+    return status == 404 || status == 410;
+  }
+}
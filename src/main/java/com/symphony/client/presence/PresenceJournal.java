@@ -0,0 +1,238 @@
+package com.symphony.client.presence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of presence events in memory-mapped, fixed-width segments, so that a restarted consumer can rebuild
+ * its state from disk instead of scanning the pod.
+ *
+ * <p>Each record is {@value #RECORD_SIZE} bytes: user id, timestamp, status code and a check word that tells written
+ * records apart from the zeroed space at the end of a segment (or a record torn by a crash). A segment holds
+ * {@code segmentRecords} records; when it is full the next one is mapped. Records reach the page cache as soon as they
+ * are appended and so survive a crash of the process; {@link #flush()} forces them to the device.
+ *
+ * <p>{@link #compact()} rewrites all full segments into one holding only the latest record per user. Replaying the
+ * journal delivers records in append order, so the last record seen for a user is its current presence.
+ */
+@Slf4j
+public class PresenceJournal implements PresenceListener, Closeable {
+  public static final int RECORD_SIZE = 24;
+  public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+  private static final String PREFIX = "presence-";
+  private static final String SUFFIX = ".log";
+  private static final int CHECK = 0x5A5A5A5A;
+
+  private final Path directory;
+  private final int segmentRecords;
+
+  private long segment;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+
+  public PresenceJournal(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_RECORDS);
+  }
+
+  public PresenceJournal(Path directory, int segmentRecords) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.segmentRecords = segmentRecords;
+
+    List<Long> segments = segments();
+    if (segments.isEmpty()) {
+      open(0);
+    } else {
+      open(segments.get(segments.size() - 1));
+      buffer.position(validRecords(buffer) * RECORD_SIZE);
+    }
+  }
+
+  @Override
+  public void onPresence(Presence presence) {
+    try {
+      append(presence.getUserId(), presence.getStatus(), presence.getTimestamp());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public synchronized void append(long userId, PresenceStatus status, long timestamp) throws IOException {
+    if (buffer.remaining() < RECORD_SIZE) {
+      roll();
+    }
+    write(buffer, userId, status.code(), timestamp);
+  }
+
+  /**
+   * Appends every presence of {@code batch}.
+   */
+  public synchronized void append(PresenceBatch batch) throws IOException {
+    for (int i = 0; i < batch.size(); i++) {
+      append(batch.getUserId(i), batch.getStatus(i), batch.getTimestamp(i));
+    }
+  }
+
+  /**
+   * Hands every journaled presence to {@code listener}, oldest first.
+   *
+   * @return the number of records replayed
+   */
+  public synchronized long replay(PresenceListener listener) throws IOException {
+    long records = 0;
+    for (long id : segments()) {
+      ByteBuffer segment = id == this.segment ? buffer.duplicate() : map(id, FileChannel.MapMode.READ_ONLY);
+      int count = id == this.segment ? buffer.position() / RECORD_SIZE : validRecords(segment);
+      for (int i = 0; i < count; i++) {
+        int offset = i * RECORD_SIZE;
+        listener.onPresence(new Presence(segment.getLong(offset),
+            PresenceStatus.fromCode(segment.getInt(offset + 16)), segment.getLong(offset + 8)));
+      }
+      records += count;
+    }
+    return records;
+  }
+
+  /**
+   * Replaces all full segments with a single one that keeps only the latest record per user.
+   *
+   * @return the number of records dropped
+   */
+  public synchronized long compact() throws IOException {
+    List<Long> closed = segments();
+    closed.remove(segment);
+    if (closed.isEmpty()) {
+      return 0;
+    }
+
+    long before = 0;
+    Map<Long, long[]> latest = new HashMap<>();
+    for (long id : closed) {
+      ByteBuffer segment = map(id, FileChannel.MapMode.READ_ONLY);
+      int count = validRecords(segment);
+      before += count;
+      for (int i = 0; i < count; i++) {
+        int offset = i * RECORD_SIZE;
+        long userId = segment.getLong(offset);
+        long timestamp = segment.getLong(offset + 8);
+        long[] record = latest.get(userId);
+        if (record == null || record[0] <= timestamp) {
+          latest.put(userId, new long[] {timestamp, segment.getInt(offset + 16)});
+        }
+      }
+    }
+
+    Path target = path(closed.get(closed.size() - 1));
+    Path temp = directory.resolve(target.getFileName() + ".compact");
+    try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer compacted = out.map(FileChannel.MapMode.READ_WRITE, 0, (long) latest.size() * RECORD_SIZE);
+      for (Map.Entry<Long, long[]> entry : latest.entrySet()) {
+        long[] record = entry.getValue();
+        write(compacted, entry.getKey(), (int) record[1], record[0]);
+      }
+      compacted.force();
+    }
+
+    // Replacing the newest closed segment first keeps the journal complete if we stop half way: older segments left
+    // behind are replayed before the compacted one, which holds the latest record for each of their users.
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    for (long id : closed.subList(0, closed.size() - 1)) {
+      Files.delete(path(id));
+    }
+
+    log.info("Compacted {} journal segments: {} records down to {}", closed.size(), before, latest.size());
+    return before - latest.size();
+  }
+
+  public synchronized void flush() {
+    buffer.force();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+
+  private void roll() throws IOException {
+    buffer.force();
+    channel.close();
+    open(segment + 1);
+  }
+
+  private void open(long id) throws IOException {
+    segment = id;
+    channel = FileChannel.open(path(id), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    long size = Math.max(channel.size(), (long) segmentRecords * RECORD_SIZE);
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+  }
+
+  private MappedByteBuffer map(long id, FileChannel.MapMode mode) throws IOException {
+    try (FileChannel channel = FileChannel.open(path(id), StandardOpenOption.READ)) {
+      return channel.map(mode, 0, channel.size());
+    }
+  }
+
+  private List<Long> segments() throws IOException {
+    List<Long> segments = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+      }
+    }
+    Collections.sort(segments);
+    return segments;
+  }
+
+  private Path path(long id) {
+    return directory.resolve(String.format("%s%020d%s", PREFIX, id, SUFFIX));
+  }
+
+  private static void write(ByteBuffer buffer, long userId, int status, long timestamp) {
+    buffer.putLong(userId);
+    buffer.putLong(timestamp);
+    buffer.putInt(status);
+    buffer.putInt(check(userId, timestamp, status));
+  }
+
+  /**
+   * Counts the records at the start of {@code segment} whose check word is valid.
+   */
+  private static int validRecords(ByteBuffer segment) {
+    int count = 0;
+    for (int offset = 0; offset + RECORD_SIZE <= segment.limit(); offset += RECORD_SIZE) {
+      long userId = segment.getLong(offset);
+      long timestamp = segment.getLong(offset + 8);
+      int status = segment.getInt(offset + 16);
+      if (segment.getInt(offset + 20) != check(userId, timestamp, status)) {
+        break;
+      }
+      count++;
+    }
+    return count;
+  }
+
+  private static int check(long userId, long timestamp, int status) {
+    long h = userId * 31 + timestamp;
+    return (int) (h ^ (h >>> 32)) ^ status ^ CHECK;
+  }
+}
@@ -0,0 +1,9 @@
+package com.symphony.client.presence;
+
+/**
+ * Receives presence events read from a presence feed.
+ */
+public interface PresenceListener {
+
+  void onPresence(Presence presence);
+}
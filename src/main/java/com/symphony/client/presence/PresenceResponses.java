@@ -0,0 +1,50 @@
+package com.symphony.client.presence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Converts pod responses into {@link Presence} objects.
+ */
+@Slf4j
+final class PresenceResponses {
+
+  private PresenceResponses() {
+  }
+
+  static void checkResponse(JCurl.Response response) throws InternalError {
+    int status = response.getResponseCode();
+    if (status != 200) {
+      log.error(response.getOutput());
+      throw new InternalError("Response returned code " + status);
+    }
+  }
+
+  static Presence toPresence(JCurl.Response response) throws IOException {
+    checkResponse(response);
+    return PresenceCodec.decode(response.getOutput());
+  }
+
+  /**
+   * Like {@link #toPresence(JCurl.Response)}, but returns {@code null} if the pod has no such user.
+   */
+  static Presence toPresenceIfFound(JCurl.Response response) throws IOException {
+    if (response.getResponseCode() == 404) {
+      return null;
+    }
+    return toPresence(response);
+  }
+
+  static List<Presence> toPresences(JCurl.Response response) throws IOException {
+    checkResponse(response);
+    return PresenceCodec.decodeAll(response.getOutput());
+  }
+
+  static int toBatch(JCurl.Response response, PresenceBatch batch) throws IOException {
+    checkResponse(response);
+    return PresenceCodec.decodeAll(response.getOutput(), batch);
+  }
+}
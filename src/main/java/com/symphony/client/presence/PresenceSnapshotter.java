@@ -0,0 +1,194 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.Api;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.cert.CertificateParsingException;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Walks every presence on the pod through {@link Api#getAllPresence(long, int)} and streams it into a consumer.
+ *
+ * <p>Pages are fetched back-to-back: the next request goes out as soon as the last user id of the previous page is
+ * known, while that page is handed to a pool of processing threads. At most {@code maxPagesInFlight} fetched pages
+ * may wait for processing, which bounds memory regardless of pod size.
+ *
+ * <p>When a checkpoint file is given, the last user id of the highest contiguous run of fully processed pages is
+ * written to it after every page, so an interrupted snapshot can be resumed without reprocessing or skipping users.
+ */
+@Slf4j
+public class PresenceSnapshotter {
+  public static final int DEFAULT_PAGE_SIZE = 1000;
+  public static final int DEFAULT_MAX_PAGES_IN_FLIGHT = 8;
+
+  private static final int PROGRESS_INTERVAL = 100;
+
+  private final Api api;
+  private final int pageSize;
+  private final int processingThreads;
+  private final int maxPagesInFlight;
+
+  public PresenceSnapshotter(Api api) {
+    this(api, DEFAULT_PAGE_SIZE, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_PAGES_IN_FLIGHT);
+  }
+
+  public PresenceSnapshotter(Api api, int pageSize, int processingThreads, int maxPagesInFlight) {
+    this.api = api;
+    this.pageSize = pageSize;
+    this.processingThreads = processingThreads;
+    this.maxPagesInFlight = maxPagesInFlight;
+  }
+
+  public Result snapshot(PresenceListener consumer)
+      throws IOException, CertificateParsingException, InterruptedException {
+    return snapshot(0, consumer, null);
+  }
+
+  /**
+   * Resumes from the user id stored in {@code checkpoint} (or starts from the beginning if it does not exist) and
+   * keeps the checkpoint up to date while paging.
+   */
+  public Result resume(Path checkpoint, PresenceListener consumer)
+      throws IOException, CertificateParsingException, InterruptedException {
+    long lastUserId = 0;
+    if (Files.exists(checkpoint)) {
+      lastUserId = Long.parseLong(new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8).trim());
+      log.info("Resuming presence snapshot after user {}", lastUserId);
+    }
+    return snapshot(lastUserId, consumer, checkpoint);
+  }
+
+  public Result snapshot(long lastUserId, PresenceListener consumer, Path checkpoint)
+      throws IOException, CertificateParsingException, InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(processingThreads);
+    Semaphore inFlight = new Semaphore(maxPagesInFlight);
+    Progress progress = new Progress(lastUserId, checkpoint);
+    long start = System.nanoTime();
+    long pages = 0;
+    long users = 0;
+    List<Presence> page;
+
+    try {
+      do {
+        progress.rethrow();
+        inFlight.acquire();
+
+        page = PresenceResponses.toPresences(api.getAllPresence(lastUserId, pageSize));
+        if (page.isEmpty()) {
+          inFlight.release();
+          break;
+        }
+
+        long sequence = pages++;
+        List<Presence> presences = page;
+        lastUserId = presences.get(presences.size() - 1).getUserId();
+        long pageLastUserId = lastUserId;
+        users += presences.size();
+
+        executor.execute(() -> {
+          try {
+            for (Presence presence : presences) {
+              consumer.onPresence(presence);
+            }
+            progress.completed(sequence, pageLastUserId);
+          } catch (Throwable t) {
+            progress.failed(t);
+          } finally {
+            inFlight.release();
+          }
+        });
+
+        if (pages % PROGRESS_INTERVAL == 0) {
+          log.info("Presence snapshot: {} pages, {} users, {} pages/s", pages, users,
+              String.format("%.1f", rate(pages, start)));
+        }
+      } while (page.size() >= pageSize);
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+    progress.rethrow();
+
+    Result result = new Result(pages, users, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        progress.getLastUserId());
+    log.info("Presence snapshot done: {} pages, {} users in {} ms ({} pages/s)", result.getPages(),
+        result.getUsers(), result.getElapsedMillis(), String.format("%.1f", result.getPagesPerSecond()));
+    return result;
+  }
+
+  private static double rate(long count, long startNanos) {
+    long elapsed = System.nanoTime() - startNanos;
+    return elapsed == 0 ? 0 : count * 1e9 / elapsed;
+  }
+
+  @Data
+  public static class Result {
+    private final long pages;
+    private final long users;
+    private final long elapsedMillis;
+    private final long lastUserId;
+
+    public double getPagesPerSecond() {
+      return elapsedMillis == 0 ? 0 : pages * 1000.0 / elapsedMillis;
+    }
+  }
+
+  /**
+   * Tracks the highest contiguous run of processed pages and checkpoints its last user id.
+   */
+  private static class Progress {
+    private final Path checkpoint;
+    private final TreeMap<Long, Long> completed = new TreeMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private long nextSequence;
+    private long lastUserId;
+
+    private Progress(long lastUserId, Path checkpoint) {
+      this.lastUserId = lastUserId;
+      this.checkpoint = checkpoint;
+    }
+
+    private synchronized void completed(long sequence, long pageLastUserId) throws IOException {
+      completed.put(sequence, pageLastUserId);
+      boolean advanced = false;
+      while (!completed.isEmpty() && completed.firstKey() == nextSequence) {
+        lastUserId = completed.pollFirstEntry().getValue();
+        nextSequence++;
+        advanced = true;
+      }
+      if (advanced && checkpoint != null) {
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.write(tmp, String.valueOf(lastUserId).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+    }
+
+    private synchronized long getLastUserId() {
+      return lastUserId;
+    }
+
+    private void failed(Throwable t) {
+      failure.compareAndSet(null, t);
+    }
+
+    private void rethrow() throws IOException {
+      Throwable t = failure.get();
+      if (t != null) {
+        throw new IOException("Processing presence snapshot failed", t);
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.symphony.client.presence;
+
+/**
+ * Presence categories known to the pod. Categories added by newer pods decode as {@link #UNKNOWN}.
+ */
+public enum PresenceStatus {
+  UNKNOWN(0),
+  AVAILABLE(1),
+  AWAY(2),
+  BUSY(3),
+  ON_THE_PHONE(4),
+  BE_RIGHT_BACK(5),
+  IN_A_MEETING(6),
+  OUT_OF_OFFICE(7),
+  OFF_WORK(8),
+  OFFLINE(9);
+
+  private static final PresenceStatus[] BY_CODE = new PresenceStatus[values().length];
+
+  static {
+    for (PresenceStatus status : values()) {
+      BY_CODE[status.code] = status;
+    }
+  }
+
+  private final byte code;
+
+  PresenceStatus(int code) {
+    this.code = (byte) code;
+  }
+
+  /**
+   * Compact numeric code of this status. Codes are never reused, so they can be persisted.
+   */
+  public byte code() {
+    return code;
+  }
+
+  public static PresenceStatus fromCode(int code) {
+    return code > 0 && code < BY_CODE.length ? BY_CODE[code] : UNKNOWN;
+  }
+
+  public static PresenceStatus fromCategory(String category) {
+    if (category != null) {
+      for (PresenceStatus status : BY_CODE) {
+        if (status.name().equals(category)) {
+          return status;
+        }
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Looks up a category held in a character buffer without allocating a string.
+   */
+  public static PresenceStatus fromCategory(char[] chars, int offset, int length) {
+    for (PresenceStatus status : BY_CODE) {
+      if (status.matches(chars, offset, length)) {
+        return status;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  private boolean matches(char[] chars, int offset, int length) {
+    String name = name();
+    if (name.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (name.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
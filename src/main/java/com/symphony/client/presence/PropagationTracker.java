@@ -0,0 +1,242 @@
+package com.symphony.client.presence;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long a presence write takes to show up on the presence feed.
+ *
+ * <p>Callers take a timestamp with {@link #begin()} before sending a write and report the presence confirmed by the
+ * pod with {@link #sent(long, Presence)}. Feed events are matched to writes by user id and server timestamp. Events
+ * that arrive before the write's response are kept until the write is reported. Writes not seen on the feed within
+ * {@code timeoutMillis} count as lost. Events older than the last one seen for the same user count as out of order.
+ *
+ * <p>The last timestamps are kept for at most {@code maxTrackedUsers} users, the least recently seen being forgotten
+ * first, so the first event seen again for a forgotten user is not checked for order.
+ */
+public class PropagationTracker implements PresenceListener {
+  public static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  public static final int DEFAULT_MAX_TRACKED_USERS = 1000000;
+
+  private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+  private final long timeoutNanos;
+  private final Recorder latencies = new Recorder(MAX_LATENCY_NANOS, 3);
+  private final Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+  private final ConcurrentMap<Key, Slot> slots = new ConcurrentHashMap<>();
+  private final Map<Long, Long> lastSeen;
+
+  private final AtomicLong matched = new AtomicLong();
+  private final AtomicLong lost = new AtomicLong();
+  private final AtomicLong outOfOrder = new AtomicLong();
+  private final AtomicLong unmatched = new AtomicLong();
+
+  public PropagationTracker() {
+    this(DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  public PropagationTracker(long timeoutMillis) {
+    this(timeoutMillis, DEFAULT_MAX_TRACKED_USERS);
+  }
+
+  public PropagationTracker(long timeoutMillis, int maxTrackedUsers) {
+    if (maxTrackedUsers < 1) {
+      throw new IllegalArgumentException("maxTrackedUsers must be positive");
+    }
+    this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    this.lastSeen = new LinkedHashMap<Long, Long>(Math.min(maxTrackedUsers, 1024), 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+        return size() > maxTrackedUsers;
+      }
+    };
+  }
+
+  /**
+   * Returns the local send time to pass to {@link #sent(long, Presence)}.
+   */
+  public long begin() {
+    return System.nanoTime();
+  }
+
+  public void sent(long sendNanos, Presence confirmed) {
+    match(new Key(confirmed.getUserId(), confirmed.getTimestamp()), new Slot(true, sendNanos));
+  }
+
+  @Override
+  public void onPresence(Presence presence) {
+    received(presence.getUserId(), presence.getTimestamp());
+  }
+
+  public void received(long userId, long timestamp) {
+    long now = System.nanoTime();
+
+    Long previous;
+    synchronized (lastSeen) {
+      previous = lastSeen.put(userId, timestamp);
+    }
+    if (previous != null && previous > timestamp) {
+      outOfOrder.incrementAndGet();
+    }
+
+    match(new Key(userId, timestamp), new Slot(false, now));
+  }
+
+  /**
+   * Counts writes that have not shown up within the timeout as lost and drops feed events that never matched a write
+   * (for example writes made by someone else).
+   */
+  public void expire() {
+    long deadline = System.nanoTime() - timeoutNanos;
+    for (Iterator<Map.Entry<Key, Slot>> it = slots.entrySet().iterator(); it.hasNext(); ) {
+      Slot slot = it.next().getValue();
+      if (slot.nanos - deadline < 0) {
+        it.remove();
+        (slot.sent ? lost : unmatched).incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} while some reported write has not been seen on the feed yet.
+   */
+  public boolean hasPendingWrites() {
+    for (Slot slot : slots.values()) {
+      if (slot.sent) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public Result result() {
+    expire();
+    Histogram snapshot;
+    synchronized (total) {
+      total.add(latencies.getIntervalHistogram());
+      snapshot = total.copy();
+    }
+    return new Result(snapshot, matched.get(), lost.get(), outOfOrder.get(), unmatched.get(), slots.size());
+  }
+
+  /**
+   * Pairs a send with a feed event for the same key, whichever comes first, or parks it until the other side arrives.
+   */
+  private void match(Key key, Slot slot) {
+    long[] latency = {Long.MIN_VALUE};
+    slots.compute(key, (k, other) -> {
+      if (other == null || other.sent == slot.sent) {
+        return slot;
+      }
+      latency[0] = slot.sent ? other.nanos - slot.nanos : slot.nanos - other.nanos;
+      return null;
+    });
+    if (latency[0] != Long.MIN_VALUE) {
+      latencies.recordValue(Math.max(0, Math.min(latency[0], MAX_LATENCY_NANOS)));
+      matched.incrementAndGet();
+    }
+  }
+
+  private static final class Slot {
+    private final boolean sent;
+    private final long nanos;
+
+    private Slot(boolean sent, long nanos) {
+      this.sent = sent;
+      this.nanos = nanos;
+    }
+  }
+
+  private static final class Key {
+    private final long userId;
+    private final long timestamp;
+
+    private Key(long userId, long timestamp) {
+      this.userId = userId;
+      this.timestamp = timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return userId == other.userId && timestamp == other.timestamp;
+    }
+
+    @Override
+    public int hashCode() {
+      long h = userId * 31 + timestamp;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+
+  /**
+   * Propagation figures since the tracker was created. Latencies are in microseconds.
+   */
+  public static class Result {
+    private final Histogram latencies;
+    private final long matched;
+    private final long lost;
+    private final long outOfOrder;
+    private final long unmatched;
+    private final long pending;
+
+    Result(Histogram latencies, long matched, long lost, long outOfOrder, long unmatched, long pending) {
+      this.latencies = latencies;
+      this.matched = matched;
+      this.lost = lost;
+      this.outOfOrder = outOfOrder;
+      this.unmatched = unmatched;
+      this.pending = pending;
+    }
+
+    public Histogram getLatencies() {
+      return latencies;
+    }
+
+    public long getMatched() {
+      return matched;
+    }
+
+    public long getLost() {
+      return lost;
+    }
+
+    public long getOutOfOrder() {
+      return outOfOrder;
+    }
+
+    public long getUnmatched() {
+      return unmatched;
+    }
+
+    /**
+     * Writes and feed events still waiting for their counterpart.
+     */
+    public long getPending() {
+      return pending;
+    }
+
+    public long getPercentileMicros(double percentile) {
+      return TimeUnit.NANOSECONDS.toMicros(latencies.getValueAtPercentile(percentile));
+    }
+
+    @Override
+    public String toString() {
+      return String.format("propagation      matched=%d lost=%d pending=%d outOfOrder=%d unmatched=%d p50=%dus "
+              + "p90=%dus p99=%dus p99.9=%dus max=%dus", matched, lost, pending, outOfOrder, unmatched,
+          getPercentileMicros(50), getPercentileMicros(90), getPercentileMicros(99), getPercentileMicros(99.9),
+          TimeUnit.NANOSECONDS.toMicros(latencies.getMaxValue()));
+    }
+  }
+}
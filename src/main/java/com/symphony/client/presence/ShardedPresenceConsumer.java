@@ -0,0 +1,219 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.Api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.cert.CertificateParsingException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads several presence feeds at once and fans their events out to partitioned worker threads.
+ *
+ * <p>Every feed carries every presence change, so reading more than one feed adds redundancy and spreads decoding
+ * across threads rather than adding events. Events are routed by user id to one of {@code partitions} workers. Each
+ * partition keeps the last timestamp queued per user and drops anything not newer, which removes the copies
+ * coming from the other feeds and guarantees that the handler sees each user's updates once and in order. A handler
+ * only ever runs on the worker thread of its user's partition, so handlers for different users scale across cores.
+ * When a partition's queue is full the feed readers wait, which slows reading instead of dropping events.
+ *
+ * <p>The last timestamps are kept for at most {@code maxTrackedUsers} users, the least recently seen being forgotten
+ * first. The copies of an event on the other feeds arrive within a few reads of each other, so forgetting a user who
+ * has been quiet that long does not let duplicates through in practice.
+ */
+@Slf4j
+public class ShardedPresenceConsumer implements Closeable {
+  public static final int DEFAULT_FEEDS = 2;
+  public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+  public static final int DEFAULT_MAX_TRACKED_USERS = 1000000;
+
+  private final List<PresenceFeedStream> streams = new ArrayList<>();
+  private final Partition[] partitions;
+  private final PresenceListener handler;
+
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong duplicates = new AtomicLong();
+  private final AtomicLong delivered = new AtomicLong();
+
+  private volatile boolean running;
+
+  public ShardedPresenceConsumer(Api api, PresenceListener handler) {
+    this(api, DEFAULT_FEEDS, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, handler);
+  }
+
+  public ShardedPresenceConsumer(Api api, int feeds, int partitions, int queueCapacity, PresenceListener handler) {
+    this(api, feeds, partitions, queueCapacity, DEFAULT_MAX_TRACKED_USERS, handler);
+  }
+
+  public ShardedPresenceConsumer(Api api, int feeds, int partitions, int queueCapacity, int maxTrackedUsers,
+      PresenceListener handler) {
+    if (feeds < 1 || partitions < 1 || maxTrackedUsers < 1) {
+      throw new IllegalArgumentException("feeds, partitions and maxTrackedUsers must be positive");
+    }
+    this.handler = handler;
+    this.partitions = new Partition[partitions];
+    int maxPartitionUsers = (maxTrackedUsers + partitions - 1) / partitions;
+    for (int i = 0; i < partitions; i++) {
+      this.partitions[i] = new Partition(i, queueCapacity, maxPartitionUsers);
+    }
+    for (int i = 0; i < feeds; i++) {
+      PresenceFeedStream stream = new PresenceFeedStream(api, null, PresenceFeedStream.DEFAULT_MIN_BACKOFF_MILLIS,
+          PresenceFeedStream.DEFAULT_MAX_BACKOFF_MILLIS);
+      stream.addListener(this::route);
+      streams.add(stream);
+    }
+  }
+
+  /**
+   * Starts the workers, then creates and starts reading every feed.
+   */
+  public synchronized void start() throws IOException, CertificateParsingException {
+    if (running) {
+      return;
+    }
+    running = true;
+    for (Partition partition : partitions) {
+      partition.thread.start();
+    }
+    for (PresenceFeedStream stream : streams) {
+      stream.start();
+    }
+  }
+
+  /**
+   * Stops reading, lets the workers finish the events already queued, then stops them.
+   */
+  @Override
+  public synchronized void close() {
+    if (!running) {
+      return;
+    }
+    for (PresenceFeedStream stream : streams) {
+      stream.close();
+    }
+    running = false;
+    for (Partition partition : partitions) {
+      partition.thread.interrupt();
+    }
+    for (Partition partition : partitions) {
+      try {
+        partition.thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  public List<String> getFeedIds() {
+    List<String> feedIds = new ArrayList<>(streams.size());
+    for (PresenceFeedStream stream : streams) {
+      feedIds.add(stream.getFeedId());
+    }
+    return feedIds;
+  }
+
+  /**
+   * Events read from all feeds, including duplicates.
+   */
+  public long getReceived() {
+    return received.get();
+  }
+
+  public long getDuplicates() {
+    return duplicates.get();
+  }
+
+  public long getDelivered() {
+    return delivered.get();
+  }
+
+  public int getQueued() {
+    int queued = 0;
+    for (Partition partition : partitions) {
+      queued += partition.queue.size();
+    }
+    return queued;
+  }
+
+  private void route(Presence presence) {
+    received.incrementAndGet();
+    try {
+      if (!partitions[partitionOf(presence.getUserId())].offer(presence)) {
+        duplicates.incrementAndGet();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private int partitionOf(long userId) {
+    long h = userId * 0x9E3779B97F4A7C15L;
+    return (int) ((h ^ (h >>> 32)) & Integer.MAX_VALUE) % partitions.length;
+  }
+
+  private final class Partition {
+    private final BlockingQueue<Presence> queue;
+    private final Map<Long, Long> lastTimestamps;
+    private final Thread thread;
+
+    private Partition(int index, int capacity, int maxUsers) {
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.lastTimestamps = new LinkedHashMap<Long, Long>(Math.min(maxUsers, 1024), 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+          return size() > maxUsers;
+        }
+      };
+      this.thread = new Thread(this::run, "presence-partition-" + index);
+      this.thread.setDaemon(true);
+    }
+
+    /**
+     * Queues {@code presence} if it is newer than the last event queued for its user. Checking and queueing under one
+     * lock keeps two feed readers from queueing the same user's events in the wrong order.
+     *
+     * @return {@code false} if the event was dropped as a duplicate or stale
+     */
+    private synchronized boolean offer(Presence presence) throws InterruptedException {
+      Long last = lastTimestamps.get(presence.getUserId());
+      if (last != null && last >= presence.getTimestamp()) {
+        return false;
+      }
+      queue.put(presence);
+      lastTimestamps.put(presence.getUserId(), presence.getTimestamp());
+      return true;
+    }
+
+    private void run() {
+      while (running || !queue.isEmpty()) {
+        Presence presence;
+        try {
+          presence = queue.take();
+        } catch (InterruptedException e) {
+          if (running) {
+            continue;
+          }
+          presence = queue.poll();
+          if (presence == null) {
+            break;
+          }
+        }
+        try {
+          handler.onPresence(presence);
+          delivered.incrementAndGet();
+        } catch (RuntimeException e) {
+          log.error("Presence handler failed on {}", presence, e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.metrics.CacheMetrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded LRU cache of {@code getUserInfoById} responses.
+ *
+ * <p>Entries expire {@code ttlMillis} after being loaded. Ids the pod does not know (400 or 404) are cached as absent
+ * for {@code negativeTtlMillis}, so enriching events for a deleted user does not call the pod every time. An entry
+ * read in the last quarter of its lifetime is reloaded in the background while the cached value keeps being served,
+ * so users that are looked up often never see a miss. Concurrent misses for the same id share one load.
+ */
+@Slf4j
+public class UserInfoCache {
+  public static final int DEFAULT_MAX_SIZE = 10000;
+  public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+  public static final long DEFAULT_NEGATIVE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final Loader loader;
+  private final CacheMetrics metrics;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final Map<Long, CachedUser> entries;
+  private final ConcurrentMap<Long, CompletableFuture<JsonNode>> loads = new ConcurrentHashMap<>();
+
+  public UserInfoCache(AsyncPresenceApi api, CacheMetrics metrics) {
+    this(api, metrics, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS);
+  }
+
+  public UserInfoCache(AsyncPresenceApi api, CacheMetrics metrics, int maxSize, long ttlMillis,
+      long negativeTtlMillis) {
+    this(userId -> fetch(api, userId), metrics, maxSize, ttlMillis, negativeTtlMillis);
+  }
+
+  UserInfoCache(Loader loader, CacheMetrics metrics, int maxSize, long ttlMillis, long negativeTtlMillis) {
+    this.loader = loader;
+    this.metrics = metrics;
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+    this.entries = new LinkedHashMap<Long, CachedUser>(Math.min(maxSize, 1024), 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, CachedUser> eldest) {
+        if (size() > maxSize) {
+          metrics.eviction();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the user's info, completing with {@code null} if the pod does not know the id.
+   */
+  public CompletableFuture<JsonNode> get(long userId) {
+    long now = System.nanoTime();
+    CachedUser entry;
+    boolean refresh = false;
+    synchronized (this) {
+      entry = entries.get(userId);
+      if (entry != null && now - entry.expiresAt >= 0) {
+        entries.remove(userId);
+        entry = null;
+      }
+      if (entry != null && !entry.refreshing && now - entry.refreshAt >= 0) {
+        entry.refreshing = true;
+        refresh = true;
+      }
+    }
+
+    if (entry == null) {
+      metrics.miss();
+      return load(userId);
+    }
+
+    metrics.hit();
+    if (refresh) {
+      metrics.refresh();
+      load(userId);
+    }
+    return CompletableFuture.completedFuture(entry.value);
+  }
+
+  /**
+   * Returns the cached info without loading it; {@code null} if it is absent, unknown to the pod or expired.
+   */
+  public JsonNode getIfPresent(long userId) {
+    CachedUser entry;
+    synchronized (this) {
+      entry = entries.get(userId);
+    }
+    if (entry == null || System.nanoTime() - entry.expiresAt >= 0) {
+      metrics.miss();
+      return null;
+    }
+    metrics.hit();
+    return entry.value;
+  }
+
+  public synchronized void invalidate(long userId) {
+    entries.remove(userId);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private CompletableFuture<JsonNode> load(long userId) {
+    CompletableFuture<JsonNode> load = loads.get(userId);
+    if (load != null) {
+      return load;
+    }
+    CompletableFuture<JsonNode> created = new CompletableFuture<>();
+    load = loads.putIfAbsent(userId, created);
+    if (load != null) {
+      return load;
+    }
+
+    long start = System.nanoTime();
+    CompletableFuture<JsonNode> loaded;
+    try {
+      loaded = loader.load(userId);
+    } catch (RuntimeException e) {
+      loaded = new CompletableFuture<>();
+      loaded.completeExceptionally(e);
+    }
+    loaded.whenComplete((value, failure) -> {
+      loads.remove(userId, created);
+      Throwable error = failure;
+      if (error == null) {
+        try {
+          put(userId, value);
+          metrics.load(start, true);
+          created.complete(value);
+          return;
+        } catch (Throwable t) {
+          error = t;
+        }
+      }
+
+      metrics.load(start, false);
+      synchronized (this) {
+        CachedUser stale = entries.get(userId);
+        if (stale != null) {
+          stale.refreshing = false;
+        }
+      }
+      created.completeExceptionally(error);
+    });
+    return created;
+  }
+
+  /**
+   * Maps a {@code getUserInfoById} response to the user's info, or {@code null} for ids the pod does not know.
+   */
+  private static CompletableFuture<JsonNode> fetch(AsyncPresenceApi api, long userId) {
+    return api.getUserInfoById(String.valueOf(userId), null).thenApply(response -> {
+      int status = response.getResponseCode();
+      if (status == 400 || status == 404) {
+        return null;
+      }
+      if (status != 200) {
+        throw new IllegalStateException("getUserInfoById returned code " + status);
+      }
+      return response.getJsonNode();
+    });
+  }
+
+  private synchronized void put(long userId, JsonNode value) {
+    long now = System.nanoTime();
+    long ttl = value == null ? negativeTtlNanos : ttlNanos;
+    entries.put(userId, new CachedUser(value, now + ttl * 3 / 4, now + ttl));
+  }
+
+  /**
+   * Loads the info of one user, completing with {@code null} if the pod does not know the id.
+   */
+  interface Loader {
+    CompletableFuture<JsonNode> load(long userId);
+  }
+
+  private static final class CachedUser {
+    private final JsonNode value;
+    private final long refreshAt;
+    private final long expiresAt;
+    private boolean refreshing;
+
+    private CachedUser(JsonNode value, long refreshAt, long expiresAt) {
+      this.value = value;
+      this.refreshAt = refreshAt;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
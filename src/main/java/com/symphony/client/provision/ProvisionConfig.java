@@ -0,0 +1,42 @@
+package com.symphony.client.provision;
+
+import lombok.Data;
+
+import java.util.Properties;
+
+/**
+ * Settings of a {@link UserProvisioner} run, read from properties prefixed with {@code provision.}:
+ *
+ * <pre>
+ * provision.input        CSV (with a header line) or JSONL file of users to create (required)
+ * provision.output       file the created user ids are appended to (default users.txt)
+ * provision.concurrency  createUser calls in flight at once (default 16)
+ * provision.maxAttempts  attempts per user, including the first (default 5)
+ * provision.baseDelay    backoff before the first retry in milliseconds, doubled on each retry (default 200)
+ * provision.maxDelay     upper bound of the backoff in milliseconds (default 10000)
+ * </pre>
+ */
+@Data
+public class ProvisionConfig {
+  private String input;
+  private String output = "users.txt";
+  private int concurrency = 16;
+  private int maxAttempts = 5;
+  private long baseDelayMillis = 200;
+  private long maxDelayMillis = 10000;
+
+  public static ProvisionConfig fromProperties(Properties properties) {
+    ProvisionConfig config = new ProvisionConfig();
+    config.setInput(properties.getProperty("provision.input"));
+    config.setOutput(properties.getProperty("provision.output", config.output));
+    config.setConcurrency(
+        Integer.parseInt(properties.getProperty("provision.concurrency", String.valueOf(config.concurrency))));
+    config.setMaxAttempts(
+        Integer.parseInt(properties.getProperty("provision.maxAttempts", String.valueOf(config.maxAttempts))));
+    config.setBaseDelayMillis(
+        Long.parseLong(properties.getProperty("provision.baseDelay", String.valueOf(config.baseDelayMillis))));
+    config.setMaxDelayMillis(
+        Long.parseLong(properties.getProperty("provision.maxDelay", String.valueOf(config.maxDelayMillis))));
+    return config;
+  }
+}
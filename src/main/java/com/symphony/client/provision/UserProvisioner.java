@@ -0,0 +1,277 @@
+package com.symphony.client.provision;
+
+import com.symphony.client.Api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.cert.CertificateParsingException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates users in bulk with {@link Api#createUser} and records their ids.
+ *
+ * <p>Up to {@code concurrency} calls run at once. Calls that fail with an I/O error, 429 or a 5xx are retried with
+ * fully jittered exponential backoff. User names are unique on the pod, so a retry can never create a second user.
+ * When the pod rejects a user with a 400, for example because an earlier attempt or run did create it, the user is
+ * looked up by name and recorded with its existing id. Every user is appended and flushed to the output file as
+ * {@code <id>,<userName>} as soon as its id is known, so an interrupted run can simply be started again: users
+ * already listed in the output are skipped. The load generator reads the ids back with
+ * {@link #readUserIds(Path)}.
+ */
+@Slf4j
+public class UserProvisioner {
+  private static final long PROGRESS_INTERVAL_SECONDS = 5;
+
+  private final Api api;
+  private final ProvisionConfig config;
+
+  private final AtomicInteger created = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final AtomicInteger found = new AtomicInteger();
+  private final LongAdder retries = new LongAdder();
+
+  public UserProvisioner(Api api, ProvisionConfig config) {
+    if (config.getConcurrency() < 1 || config.getMaxAttempts() < 1) {
+      throw new IllegalArgumentException("concurrency and maxAttempts must be positive");
+    }
+    this.api = api;
+    this.config = config;
+  }
+
+  /**
+   * Creates every user of {@code users} not yet listed in {@code output} and appends the new ones to it.
+   */
+  public Result provision(List<UserSpec> users, Path output) throws IOException, InterruptedException {
+    Set<String> existing = readUserNames(output);
+    List<UserSpec> pending = new ArrayList<>(users.size());
+    for (UserSpec user : users) {
+      if (!existing.contains(user.getUserName())) {
+        pending.add(user);
+      }
+    }
+    log.info("===== Provisioning {} users ({} already in {}) with {} concurrent calls =====", pending.size(),
+        users.size() - pending.size(), output, config.getConcurrency());
+
+    long start = System.nanoTime();
+    ExecutorService workers = Executors.newFixedThreadPool(config.getConcurrency(), runnable -> {
+      Thread thread = new Thread(runnable, "provisioner");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND)) {
+      for (UserSpec user : pending) {
+        workers.execute(() -> create(user, writer));
+      }
+      workers.shutdown();
+      while (!workers.awaitTermination(PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS)) {
+        logProgress(pending.size(), start);
+      }
+    } finally {
+      workers.shutdownNow();
+    }
+
+    Result result = new Result(created.get(), found.get(), failed.get(), users.size() - pending.size(),
+        retries.sum(), (System.nanoTime() - start) / 1e9);
+    log.info("{}", result);
+    return result;
+  }
+
+  /**
+   * Reads the user ids of a file written by {@link #provision}, or any file with one id per line.
+   */
+  public static List<String> readUserIds(Path file) throws IOException {
+    List<String> ids = new ArrayList<>();
+    for (String[] columns : readLines(file)) {
+      ids.add(columns[0]);
+    }
+    return ids;
+  }
+
+  private void create(UserSpec user, BufferedWriter writer) {
+    for (int attempt = 1; ; attempt++) {
+      String problem;
+      try {
+        JCurl.Response response = api.createUser(user.getFirstName(), user.getLastName(), user.getUserName(),
+            user.getDisplayName(), user.getEmail(), user.isPerson());
+        int code = response.getResponseCode();
+        if (code == 200) {
+          record(writer, response.getTag("uid"), user);
+          return;
+        }
+        if (code == 400 && recordExisting(writer, user)) {
+          return;
+        }
+        if (code != 429 && code < 500) {
+          fail(user, "HTTP " + code + " " + response.getOutput());
+          return;
+        }
+        problem = "HTTP " + code;
+      } catch (Exception e) {
+        problem = e.toString();
+      }
+
+      if (attempt >= config.getMaxAttempts()) {
+        fail(user, problem + " after " + attempt + " attempts");
+        return;
+      }
+      retries.increment();
+      log.debug("Retrying user {} after {}", user, problem);
+      try {
+        Thread.sleep(backoff(attempt));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail(user, "interrupted");
+        return;
+      }
+    }
+  }
+
+  /**
+   * Records a user the pod already has, returning {@code false} if it cannot be found by name.
+   */
+  private boolean recordExisting(BufferedWriter writer, UserSpec user) throws IOException,
+      CertificateParsingException {
+    JCurl.Response response = api.getUserInfoByUsername(user.getUserName());
+    if (response.getResponseCode() != 200 || response.getTag("uid") == null) {
+      return false;
+    }
+    log.debug("User {} already exists as {}", user, response.getTag("uid"));
+    found.incrementAndGet();
+    record(writer, response.getTag("uid"), user);
+    return true;
+  }
+
+  private void record(BufferedWriter writer, String userId, UserSpec user) {
+    try {
+      synchronized (writer) {
+        writer.write(userId + "," + user.getUserName());
+        writer.newLine();
+        writer.flush();
+      }
+      created.incrementAndGet();
+    } catch (IOException e) {
+      // The user exists but is not listed; a rerun would report it as a duplicate rather than recreate it.
+      log.error("User {} was created as {} but could not be recorded", user, userId, e);
+      failed.incrementAndGet();
+    }
+  }
+
+  private void fail(UserSpec user, String problem) {
+    failed.incrementAndGet();
+    log.warn("Unable to create user {}: {}", user, problem);
+  }
+
+  private long backoff(int attempt) {
+    long ceiling = Math.min(config.getMaxDelayMillis(), config.getBaseDelayMillis() << Math.min(attempt - 1, 20));
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  private void logProgress(int total, long start) {
+    int done = created.get() + failed.get();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    log.info("Provisioned {}/{} users, {} failed, {} users/s", done, total, failed.get(),
+        String.format("%.1f", seconds == 0 ? 0 : done / seconds));
+  }
+
+  private static Set<String> readUserNames(Path file) throws IOException {
+    Set<String> names = new HashSet<>();
+    for (String[] columns : readLines(file)) {
+      if (columns.length > 1) {
+        names.add(columns[1]);
+      }
+    }
+    return names;
+  }
+
+  private static List<String[]> readLines(Path file) throws IOException {
+    List<String[]> lines = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          lines.add(line.split(","));
+        }
+      }
+    } catch (NoSuchFileException e) {
+      return lines;
+    }
+    return lines;
+  }
+
+  /**
+   * Outcome of a provisioning run.
+   */
+  public static class Result {
+    private final int created;
+    private final int existing;
+    private final int failed;
+    private final int skipped;
+    private final long retries;
+    private final double seconds;
+
+    Result(int created, int existing, int failed, int skipped, long retries, double seconds) {
+      this.created = created;
+      this.existing = existing;
+      this.failed = failed;
+      this.skipped = skipped;
+      this.retries = retries;
+      this.seconds = seconds;
+    }
+
+    public int getCreated() {
+      return created;
+    }
+
+    /**
+     * Users the pod already had, which were recorded with their existing id. Included in {@link #getCreated()}.
+     */
+    public int getExisting() {
+      return existing;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    /**
+     * Users already listed in the output file, which were not created again.
+     */
+    public int getSkipped() {
+      return skipped;
+    }
+
+    public long getRetries() {
+      return retries;
+    }
+
+    public double getThroughput() {
+      return seconds == 0 ? 0 : created / seconds;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Provisioning created=%d existing=%d failed=%d skipped=%d retries=%d time=%.1fs "
+          + "throughput=%.1f/s", created, existing, failed, skipped, retries, seconds, getThroughput());
+    }
+  }
+}
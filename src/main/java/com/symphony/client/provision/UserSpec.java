@@ -0,0 +1,144 @@
+package com.symphony.client.provision;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One user to create, as read from a provisioning input file.
+ *
+ * <p>Both formats use the fields {@code userName}, {@code email}, {@code firstName}, {@code lastName},
+ * {@code displayName} and {@code person}. Only {@code userName} is required: the email defaults to
+ * {@code <userName>@example.com}, the display name to the first and last name (or the user name), and {@code person}
+ * to {@code true}. CSV files start with a header line naming the columns, in any order; values are split on commas and
+ * cannot be quoted. Files ending in {@code .jsonl} or {@code .json} hold one JSON object per line.
+ */
+public final class UserSpec {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final String userName;
+  private final String email;
+  private final String firstName;
+  private final String lastName;
+  private final String displayName;
+  private final boolean person;
+
+  public UserSpec(String userName, String email, String firstName, String lastName, String displayName,
+      boolean person) {
+    if (userName == null || userName.isEmpty()) {
+      throw new IllegalArgumentException("userName is required");
+    }
+    this.userName = userName;
+    this.email = email != null ? email : userName + "@example.com";
+    this.firstName = firstName != null ? firstName : userName;
+    this.lastName = lastName != null ? lastName : "";
+    this.displayName = displayName != null ? displayName
+        : firstName != null || lastName != null ? (this.firstName + " " + this.lastName).trim() : userName;
+    this.person = person;
+  }
+
+  public String getUserName() {
+    return userName;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public String getFirstName() {
+    return firstName;
+  }
+
+  public String getLastName() {
+    return lastName;
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public boolean isPerson() {
+    return person;
+  }
+
+  @Override
+  public String toString() {
+    return userName;
+  }
+
+  /**
+   * Reads every user of {@code file}, picking the format from its extension.
+   */
+  public static List<UserSpec> read(Path file) throws IOException {
+    String name = file.getFileName().toString();
+    boolean json = name.endsWith(".jsonl") || name.endsWith(".json");
+
+    List<UserSpec> users = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String[] header = null;
+      String line;
+      int number = 0;
+      while ((line = reader.readLine()) != null) {
+        number++;
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        try {
+          if (json) {
+            users.add(fromFields(jsonFields(MAPPER.readTree(line))));
+          } else if (header == null) {
+            header = line.split(",", -1);
+          } else {
+            users.add(fromFields(csvFields(header, line.split(",", -1))));
+          }
+        } catch (IOException | IllegalArgumentException e) {
+          throw new IOException(file + ":" + number + ": " + e.getMessage(), e);
+        }
+      }
+    }
+    return users;
+  }
+
+  private static UserSpec fromFields(Map<String, String> fields) {
+    String person = fields.get("person");
+    return new UserSpec(fields.get("userName"), fields.get("email"), fields.get("firstName"), fields.get("lastName"),
+        fields.get("displayName"), person == null || Boolean.parseBoolean(person));
+  }
+
+  private static Map<String, String> csvFields(String[] header, String[] values) {
+    if (values.length > header.length) {
+      throw new IllegalArgumentException("Expected at most " + header.length + " columns, got " + values.length);
+    }
+    Map<String, String> fields = new HashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      String value = values[i].trim();
+      if (!value.isEmpty()) {
+        fields.put(header[i].trim(), value);
+      }
+    }
+    return fields;
+  }
+
+  private static Map<String, String> jsonFields(JsonNode node) {
+    if (!node.isObject()) {
+      throw new IllegalArgumentException("Expected a JSON object");
+    }
+    Map<String, String> fields = new HashMap<>();
+    node.fields().forEachRemaining(field -> {
+      if (!field.getValue().isNull()) {
+        fields.put(field.getKey(), field.getValue().asText());
+      }
+    });
+    return fields;
+  }
+}
@@ -0,0 +1,108 @@
+package com.symphony.client.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows the server's capacity with additive increase, multiplicative decrease (AIMD).
+ *
+ * <p>Each call that completes without an overload signal while the limit is at least half used raises the limit by
+ * {@code 1 / limit}, i.e. by about one per round trip of the whole window. An overload signal (a 429 or 503, an I/O
+ * failure, or a round trip above the latency target) multiplies the limit by {@code backoffRatio}. Only calls started
+ * after the previous decrease can trigger another one, so a burst of rejections from the same window shrinks the
+ * limit once rather than once per call.
+ */
+public class AdaptiveLimiter {
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long latencyTargetNanos;
+
+  // A lock rather than a monitor, so that callers on virtual threads do not pin their carrier while they wait
+  private final Lock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+
+  private double limit;
+  private int inFlight;
+  private long lastDecreaseNanos = System.nanoTime();
+
+  public AdaptiveLimiter(ResilienceConfig config) {
+    this.minLimit = Math.max(1, config.getMinLimit());
+    this.maxLimit = Math.max(minLimit, config.getMaxLimit());
+    this.backoffRatio = config.getBackoffRatio();
+    this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(config.getLatencyTargetMillis());
+    this.limit = Math.max(minLimit, Math.min(maxLimit, config.getInitialLimit()));
+  }
+
+  /**
+   * Waits until fewer calls than the current limit are in flight and returns the start time to pass to
+   * {@link #release(long, boolean)}.
+   */
+  public long acquire() throws InterruptedException {
+    lock.lock();
+    try {
+      while (inFlight >= (int) limit) {
+        released.await();
+      }
+      inFlight++;
+      return System.nanoTime();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void release(long startNanos, boolean overloaded) {
+    lock.lock();
+    try {
+      long now = System.nanoTime();
+      boolean slow = latencyTargetNanos > 0 && now - startNanos > latencyTargetNanos;
+      boolean saturated = inFlight >= limit / 2;
+      inFlight--;
+
+      if (overloaded || slow) {
+        if (startNanos - lastDecreaseNanos > 0) {
+          limit = Math.max(minLimit, limit * backoffRatio);
+          lastDecreaseNanos = now;
+        }
+      } else if (saturated) {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gives back a permit for a call that was never sent, without adjusting the limit.
+   */
+  public void cancel() {
+    lock.lock();
+    try {
+      inFlight--;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
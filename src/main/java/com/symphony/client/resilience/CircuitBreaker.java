@@ -0,0 +1,72 @@
+package com.symphony.client.resilience;
+
+/**
+ * Stops calling an endpoint that keeps failing.
+ *
+ * <p>After {@code failureThreshold} consecutive failures the circuit opens and calls are rejected without being sent.
+ * Once {@code openDuration} has passed a single trial call is let through: its success closes the circuit, its failure
+ * opens it again.
+ */
+public class CircuitBreaker {
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openDurationMillis;
+
+  private State state = State.CLOSED;
+  private int failures;
+  private long openUntil;
+  private boolean trialInFlight;
+
+  public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+    this.failureThreshold = failureThreshold;
+    this.openDurationMillis = openDurationMillis;
+  }
+
+  /**
+   * Returns {@code true} if a call may be sent now. Every permitted call must be followed by
+   * {@link #onSuccess()} or {@link #onFailure()}.
+   */
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (System.currentTimeMillis() < openUntil) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+      default:
+        if (trialInFlight) {
+          return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    failures = 0;
+    trialInFlight = false;
+    state = State.CLOSED;
+  }
+
+  public synchronized void onFailure() {
+    trialInFlight = false;
+    failures++;
+    if (state == State.HALF_OPEN || failures >= failureThreshold) {
+      state = State.OPEN;
+      openUntil = System.currentTimeMillis() + openDurationMillis;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
@@ -0,0 +1,13 @@
+package com.symphony.client.resilience;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a call while the circuit of its endpoint is open.
+ */
+public class CircuitOpenException extends IOException {
+
+  public CircuitOpenException(String endpoint) {
+    super("Circuit open for " + endpoint);
+  }
+}
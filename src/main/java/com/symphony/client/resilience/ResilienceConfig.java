@@ -0,0 +1,66 @@
+package com.symphony.client.resilience;
+
+import lombok.Data;
+
+import java.util.Properties;
+
+/**
+ * Settings of a {@link ResilientTransport}, read from properties prefixed with {@code resilience.}:
+ *
+ * <pre>
+ * resilience.initialLimit      concurrent calls allowed at start (default 20)
+ * resilience.minLimit          lowest concurrency limit (default 1)
+ * resilience.maxLimit          highest concurrency limit (default 200)
+ * resilience.backoffRatio      factor applied to the limit on overload (default 0.9)
+ * resilience.latencyTarget     round trips slower than this many milliseconds count as overload, 0 to disable
+ *                              (default 0)
+ * resilience.maxAttempts       attempts per call, including the first (default 3)
+ * resilience.baseDelay         first retry delay in milliseconds, doubled per attempt, with full jitter (default 50)
+ * resilience.maxDelay          highest retry delay in milliseconds (default 2000)
+ * resilience.maxRetryAfter     longest Retry-After in milliseconds still worth waiting for (default 30000)
+ * resilience.failureThreshold  consecutive failures that open an endpoint's circuit (default 5)
+ * resilience.openDuration      milliseconds an open circuit rejects calls before letting a trial through
+ *                              (default 5000)
+ * </pre>
+ */
+@Data
+public class ResilienceConfig {
+  private int initialLimit = 20;
+  private int minLimit = 1;
+  private int maxLimit = 200;
+  private double backoffRatio = 0.9;
+  private long latencyTargetMillis;
+  private int maxAttempts = 3;
+  private long baseDelayMillis = 50;
+  private long maxDelayMillis = 2000;
+  private long maxRetryAfterMillis = 30000;
+  private int failureThreshold = 5;
+  private long openDurationMillis = 5000;
+
+  public static ResilienceConfig fromProperties(Properties properties) {
+    ResilienceConfig config = new ResilienceConfig();
+    config.setInitialLimit(
+        Integer.parseInt(properties.getProperty("resilience.initialLimit", String.valueOf(config.initialLimit))));
+    config.setMinLimit(
+        Integer.parseInt(properties.getProperty("resilience.minLimit", String.valueOf(config.minLimit))));
+    config.setMaxLimit(
+        Integer.parseInt(properties.getProperty("resilience.maxLimit", String.valueOf(config.maxLimit))));
+    config.setBackoffRatio(
+        Double.parseDouble(properties.getProperty("resilience.backoffRatio", String.valueOf(config.backoffRatio))));
+    config.setLatencyTargetMillis(Long.parseLong(
+        properties.getProperty("resilience.latencyTarget", String.valueOf(config.latencyTargetMillis))));
+    config.setMaxAttempts(
+        Integer.parseInt(properties.getProperty("resilience.maxAttempts", String.valueOf(config.maxAttempts))));
+    config.setBaseDelayMillis(
+        Long.parseLong(properties.getProperty("resilience.baseDelay", String.valueOf(config.baseDelayMillis))));
+    config.setMaxDelayMillis(
+        Long.parseLong(properties.getProperty("resilience.maxDelay", String.valueOf(config.maxDelayMillis))));
+    config.setMaxRetryAfterMillis(Long.parseLong(
+        properties.getProperty("resilience.maxRetryAfter", String.valueOf(config.maxRetryAfterMillis))));
+    config.setFailureThreshold(Integer.parseInt(
+        properties.getProperty("resilience.failureThreshold", String.valueOf(config.failureThreshold))));
+    config.setOpenDurationMillis(Long.parseLong(
+        properties.getProperty("resilience.openDuration", String.valueOf(config.openDurationMillis))));
+    return config;
+  }
+}
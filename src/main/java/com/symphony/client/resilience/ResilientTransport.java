@@ -0,0 +1,174 @@
+package com.symphony.client.resilience;
+
+import com.symphony.client.Request;
+import com.symphony.client.Transport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.symphonyoss.symphony.jcurl.JCurl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.cert.CertificateParsingException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps another {@link Transport} with retries, and one {@link AdaptiveLimiter} and one {@link CircuitBreaker} per
+ * endpoint.
+ *
+ * <p>Limiting each endpoint on its own keeps slow calls of one endpoint, such as long-polling feed reads, from
+ * shrinking the limit of the others or taking all of its permits.
+ *
+ * <p>Calls rejected with 429 or 503 are retried whatever their method, since the server did not process them. I/O
+ * failures, 502 and 504 are only retried for {@link Request#isIdempotent() idempotent} requests. Retries wait for an
+ * exponentially growing, fully jittered delay, or for the server's {@code Retry-After} if that is longer; a
+ * {@code Retry-After} above {@code maxRetryAfter} ends the call with the last response. The final response is
+ * returned as is, so callers still see the status code when retries run out.
+ */
+@Slf4j
+public class ResilientTransport implements Transport {
+  private final Transport delegate;
+  private final ResilienceConfig config;
+  private final ConcurrentMap<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  public ResilientTransport(Transport delegate) {
+    this(delegate, new ResilienceConfig());
+  }
+
+  public ResilientTransport(Transport delegate, ResilienceConfig config) {
+    this.delegate = delegate;
+    this.config = config;
+  }
+
+  @Override
+  public JCurl.Response execute(Request request) throws IOException, CertificateParsingException {
+    AdaptiveLimiter limiter = limiterFor(request.getEndpoint());
+    CircuitBreaker breaker = breakerFor(request.getEndpoint());
+
+    for (int attempt = 1; ; attempt++) {
+      long start = acquire(limiter);
+      if (!breaker.tryAcquire()) {
+        limiter.cancel();
+        rejected.increment();
+        throw new CircuitOpenException(request.getEndpoint());
+      }
+
+      // The breaker must hear every outcome, or a half-open trial would stay taken for good, and the permit must come
+      // back whatever the delegate throws.
+      JCurl.Response response = null;
+      IOException failure = null;
+      try {
+        response = delegate.execute(request);
+      } catch (IOException e) {
+        failure = e;
+      } finally {
+        int code = response == null ? 0 : response.getResponseCode();
+        limiter.release(start, failure != null || code == 429 || code == 503);
+        if (response == null || code >= 500 || code == 429) {
+          breaker.onFailure();
+        } else {
+          breaker.onSuccess();
+        }
+      }
+
+      int code = response == null ? 0 : response.getResponseCode();
+      boolean rejectedByServer = code == 429 || code == 503;
+      boolean retryable = rejectedByServer
+          || request.isIdempotent() && (failure != null || code == 502 || code == 504);
+      long delay = retryable && attempt < config.getMaxAttempts() ? retryDelay(request, attempt) : -1;
+      if (delay < 0) {
+        if (failure != null) {
+          throw failure;
+        }
+        return response;
+      }
+
+      retries.increment();
+      log.debug("Retrying {} in {} ms after {}", request.getEndpoint(), delay,
+          failure != null ? failure.toString() : "HTTP " + code);
+      sleep(delay);
+    }
+  }
+
+  @Override
+  public long getRetryAfterMillis(Request request) {
+    return delegate.getRetryAfterMillis(request);
+  }
+
+  /**
+   * Returns the limiter of {@code endpoint}, or {@code null} if it has not been called yet.
+   */
+  public AdaptiveLimiter getLimiter(String endpoint) {
+    return limiters.get(endpoint);
+  }
+
+  public CircuitBreaker.State getCircuitState(String endpoint) {
+    CircuitBreaker breaker = breakers.get(endpoint);
+    return breaker == null ? CircuitBreaker.State.CLOSED : breaker.getState();
+  }
+
+  public long getRetries() {
+    return retries.sum();
+  }
+
+  /**
+   * Calls refused because their endpoint's circuit was open.
+   */
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  private AdaptiveLimiter limiterFor(String endpoint) {
+    AdaptiveLimiter limiter = limiters.get(endpoint);
+    if (limiter == null) {
+      limiter = limiters.computeIfAbsent(endpoint, name -> new AdaptiveLimiter(config));
+    }
+    return limiter;
+  }
+
+  private CircuitBreaker breakerFor(String endpoint) {
+    CircuitBreaker breaker = breakers.get(endpoint);
+    if (breaker == null) {
+      breaker = breakers.computeIfAbsent(endpoint,
+          name -> new CircuitBreaker(config.getFailureThreshold(), config.getOpenDurationMillis()));
+    }
+    return breaker;
+  }
+
+  /**
+   * Returns the delay before the next attempt, or -1 if the server asked for a longer pause than is worth waiting.
+   */
+  private long retryDelay(Request request, int attempt) {
+    long retryAfter = delegate.getRetryAfterMillis(request);
+    if (retryAfter > config.getMaxRetryAfterMillis()) {
+      return -1;
+    }
+    long ceiling = Math.min(config.getMaxDelayMillis(), config.getBaseDelayMillis() << Math.min(attempt - 1, 20));
+    long backoff = ThreadLocalRandom.current().nextLong(ceiling + 1);
+    return Math.max(backoff, retryAfter);
+  }
+
+  private static long acquire(AdaptiveLimiter limiter) throws InterruptedIOException {
+    try {
+      return limiter.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a concurrency permit");
+    }
+  }
+
+  private static void sleep(long millis) throws InterruptedIOException {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry");
+    }
+  }
+}
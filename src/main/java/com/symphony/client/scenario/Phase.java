@@ -0,0 +1,47 @@
+package com.symphony.client.scenario;
+
+import lombok.Data;
+
+import java.util.Properties;
+
+/**
+ * One step of a {@link Scenario}, read from properties prefixed with {@code phase.<name>.}:
+ *
+ * <pre>
+ * phase.&lt;name&gt;.rate      setPresence calls per second at the start of the phase (required)
+ * phase.&lt;name&gt;.rateTo    rate reached at the end of the phase, for ramps (default: constant rate)
+ * phase.&lt;name&gt;.duration  length in seconds (default 60)
+ * phase.&lt;name&gt;.users     only spread writes over the first this many users of the scenario (default: all)
+ * phase.&lt;name&gt;.record    false to run the phase without reporting it, e.g. for warmup (default true)
+ * </pre>
+ */
+@Data
+public class Phase {
+  private String name;
+  private double rate;
+  private double rateTo;
+  private long durationSeconds = 60;
+  private int users = Integer.MAX_VALUE;
+  private boolean record = true;
+
+  public static Phase fromProperties(String name, Properties properties) {
+    String prefix = "phase." + name + ".";
+    String rate = properties.getProperty(prefix + "rate");
+    if (rate == null) {
+      throw new IllegalArgumentException(prefix + "rate is required");
+    }
+
+    Phase phase = new Phase();
+    phase.setName(name);
+    phase.setRate(Double.parseDouble(rate));
+    phase.setRateTo(Double.parseDouble(properties.getProperty(prefix + "rateTo", String.valueOf(phase.rateTo))));
+    phase.setDurationSeconds(
+        Long.parseLong(properties.getProperty(prefix + "duration", String.valueOf(phase.durationSeconds))));
+    phase.setUsers(Integer.parseInt(properties.getProperty(prefix + "users", String.valueOf(phase.users))));
+    phase.setRecord(Boolean.parseBoolean(properties.getProperty(prefix + "record", String.valueOf(phase.record))));
+    if (phase.rate <= 0 || phase.rateTo < 0) {
+      throw new IllegalArgumentException(prefix + "rate must be positive");
+    }
+    return phase;
+  }
+}
@@ -0,0 +1,137 @@
+package com.symphony.client.scenario;
+
+import com.symphony.client.presence.LoadConfig;
+import com.symphony.client.presence.PresenceStatus;
+import com.symphony.client.provision.UserProvisioner;
+
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A repeatable load run: a user set, a seed and a sequence of {@link Phase}s, read from properties prefixed with
+ * {@code scenario.}:
+ *
+ * <pre>
+ * scenario.name         name used for the result files (default: the file name)
+ * scenario.seed         seed of the first phase, each later phase uses the next value (default 1)
+ * scenario.phases       comma-separated phase names, run in order, e.g. warmup,ramp,steady,spike (required)
+ * scenario.users        comma-separated user ids
+ * scenario.usersFile    file of user ids, one per line, as written by provisioning (relative to the scenario file)
+ * scenario.threads      worker threads issuing setPresence calls (default 16)
+ * scenario.executor     PLATFORM or VIRTUAL (default PLATFORM)
+ * scenario.statuses     weighted status mix, e.g. AVAILABLE:5,AWAY:2,BUSY:1 (default: uniform)
+ * scenario.feedReaders  threads reading the presence feed concurrently (default 1)
+ * </pre>
+ *
+ * <p>The same file may hold the connection settings read by {@link com.symphony.client.Client#fromConfig}
+ * ({@code POD_URL}, {@code AGENT_URL}, {@code SESSION_AUTH_URL}, {@code KEY_AUTH_URL}, {@code CERT_PATH}) plus
+ * {@code CERT_NAME} and {@code CERT_PASSWORD}; they are kept in {@link #getProperties()}.
+ */
+@Data
+public class Scenario {
+  private String name;
+  private long seed = 1;
+  private List<String> users = new ArrayList<>();
+  private int threads = 16;
+  private LoadConfig.Executor executor = LoadConfig.Executor.PLATFORM;
+  private Map<PresenceStatus, Integer> statuses;
+  private int feedReaders = 1;
+  private List<Phase> phases = new ArrayList<>();
+  private Properties properties;
+
+  public static Scenario load(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream is = Files.newInputStream(file)) {
+      properties.load(is);
+    }
+    String name = file.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    return fromProperties(dot > 0 ? name.substring(0, dot) : name, properties,
+        file.toAbsolutePath().getParent());
+  }
+
+  /**
+   * @param baseDirectory directory {@code scenario.usersFile} is resolved against
+   */
+  public static Scenario fromProperties(String defaultName, Properties properties, Path baseDirectory)
+      throws IOException {
+    Scenario scenario = new Scenario();
+    scenario.setProperties(properties);
+    scenario.setName(properties.getProperty("scenario.name", defaultName));
+    scenario.setSeed(Long.parseLong(properties.getProperty("scenario.seed", String.valueOf(scenario.seed))));
+    scenario.setThreads(
+        Integer.parseInt(properties.getProperty("scenario.threads", String.valueOf(scenario.threads))));
+    scenario.setExecutor(LoadConfig.Executor.valueOf(
+        properties.getProperty("scenario.executor", scenario.executor.name()).trim().toUpperCase(Locale.ROOT)));
+    scenario.setFeedReaders(
+        Integer.parseInt(properties.getProperty("scenario.feedReaders", String.valueOf(scenario.feedReaders))));
+    if (scenario.executor == LoadConfig.Executor.COMPARE) {
+      throw new IllegalArgumentException("scenario.executor must be PLATFORM or VIRTUAL");
+    }
+
+    String statuses = properties.getProperty("scenario.statuses");
+    if (statuses != null) {
+      scenario.setStatuses(LoadConfig.parseStatuses(statuses));
+    }
+
+    List<String> users = new ArrayList<>();
+    String userIds = properties.getProperty("scenario.users");
+    if (userIds != null) {
+      for (String userId : userIds.split(",")) {
+        if (!userId.trim().isEmpty()) {
+          users.add(userId.trim());
+        }
+      }
+    }
+    String usersFile = properties.getProperty("scenario.usersFile");
+    if (usersFile != null) {
+      Path path = baseDirectory == null ? Paths.get(usersFile) : baseDirectory.resolve(usersFile);
+      users.addAll(UserProvisioner.readUserIds(path));
+    }
+    if (users.isEmpty()) {
+      throw new IllegalArgumentException("scenario.users or scenario.usersFile is required");
+    }
+    scenario.setUsers(users);
+
+    String phases = properties.getProperty("scenario.phases");
+    if (phases == null) {
+      throw new IllegalArgumentException("scenario.phases is required");
+    }
+    for (String phase : phases.split(",")) {
+      if (!phase.trim().isEmpty()) {
+        scenario.getPhases().add(Phase.fromProperties(phase.trim(), properties));
+      }
+    }
+    return scenario;
+  }
+
+  /**
+   * Returns the load generator settings of the {@code index}-th phase.
+   */
+  public LoadConfig loadConfig(int index) {
+    Phase phase = phases.get(index);
+    LoadConfig config = new LoadConfig();
+    config.setThreads(threads);
+    config.setExecutor(executor);
+    config.setRate(phase.getRate());
+    config.setRateTo(phase.getRateTo());
+    config.setSeed(seed + index);
+    config.setUsers(phase.getUsers());
+    config.setDurationSeconds(phase.getDurationSeconds());
+    config.setFeedReaders(feedReaders);
+    if (statuses != null) {
+      config.setStatuses(statuses);
+    }
+    return config;
+  }
+}
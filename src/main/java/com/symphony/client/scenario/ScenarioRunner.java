@@ -0,0 +1,142 @@
+package com.symphony.client.scenario;
+
+import com.symphony.client.Api;
+import com.symphony.client.presence.LoadConfig;
+import com.symphony.client.presence.LoadGenerator;
+import com.symphony.client.presence.PropagationTracker;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the phases of a {@link Scenario} back to back with a {@link LoadGenerator} and writes the outcome to a JSON file
+ * in {@code resultsDirectory}, named after the scenario and the start time.
+ *
+ * <p>Besides the per-phase throughput, error counts and latency percentiles, the file records the scenario settings,
+ * the seed of each phase, the client version and the JVM, so two result files can be compared knowing both runs
+ * offered the same load.
+ */
+@Slf4j
+public class ScenarioRunner {
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private final Api api;
+  private final Path resultsDirectory;
+
+  public ScenarioRunner(Api api, Path resultsDirectory) {
+    this.api = api;
+    this.resultsDirectory = resultsDirectory;
+  }
+
+  /**
+   * Runs every phase of {@code scenario} and returns the result file.
+   */
+  public Path run(Scenario scenario) throws IOException, InterruptedException {
+    long startedAt = System.currentTimeMillis();
+    String[] users = scenario.getUsers().toArray(new String[0]);
+
+    Files.createDirectories(resultsDirectory);
+    SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    Path file = resultsDirectory.resolve(scenario.getName() + "-" + format.format(new Date(startedAt)) + ".json");
+
+    try (OutputStream os = Files.newOutputStream(file); JsonGenerator json = JSON.createGenerator(os)) {
+      json.useDefaultPrettyPrinter();
+      json.writeStartObject();
+      json.writeStringField("scenario", scenario.getName());
+      json.writeNumberField("startedAt", startedAt);
+      json.writeStringField("version", version());
+      json.writeStringField("java", System.getProperty("java.version"));
+      json.writeNumberField("seed", scenario.getSeed());
+      json.writeNumberField("users", users.length);
+      json.writeNumberField("threads", scenario.getThreads());
+      json.writeStringField("executor", scenario.getExecutor().name());
+      json.writeNumberField("feedReaders", scenario.getFeedReaders());
+      json.writeArrayFieldStart("phases");
+
+      for (int i = 0; i < scenario.getPhases().size(); i++) {
+        Phase phase = scenario.getPhases().get(i);
+        LoadConfig config = scenario.loadConfig(i);
+        log.info("===== Scenario {}: phase {} ({}/{}) =====", scenario.getName(), phase.getName(), i + 1,
+            scenario.getPhases().size());
+
+        LoadGenerator generator = new LoadGenerator(api, users, config);
+        Map<String, LoadGenerator.Result> results = generator.run();
+        if (phase.isRecord()) {
+          writePhase(json, phase, config, results, generator.getPropagationTracker().result());
+          json.flush();
+        }
+      }
+
+      json.writeEndArray();
+      json.writeNumberField("finishedAt", System.currentTimeMillis());
+      json.writeEndObject();
+    }
+
+    log.info("Scenario {} results written to {}", scenario.getName(), file);
+    return file;
+  }
+
+  private static void writePhase(JsonGenerator json, Phase phase, LoadConfig config,
+      Map<String, LoadGenerator.Result> results, PropagationTracker.Result propagation) throws IOException {
+    json.writeStartObject();
+    json.writeStringField("name", phase.getName());
+    json.writeNumberField("seed", config.getSeed());
+    json.writeNumberField("rate", phase.getRate());
+    if (phase.getRateTo() > 0) {
+      json.writeNumberField("rateTo", phase.getRateTo());
+    }
+    json.writeNumberField("durationSeconds", phase.getDurationSeconds());
+
+    json.writeObjectFieldStart("operations");
+    for (LoadGenerator.Result result : results.values()) {
+      json.writeObjectFieldStart(result.getOperation());
+      json.writeNumberField("count", result.getCount());
+      json.writeNumberField("errors", result.getErrors());
+      json.writeNumberField("events", result.getEvents());
+      json.writeNumberField("throughput", result.getThroughput());
+      json.writeObjectFieldStart("latencyMicros");
+      json.writeNumberField("p50", result.getPercentileMicros(50));
+      json.writeNumberField("p90", result.getPercentileMicros(90));
+      json.writeNumberField("p99", result.getPercentileMicros(99));
+      json.writeNumberField("p999", result.getPercentileMicros(99.9));
+      json.writeNumberField("max", TimeUnit.NANOSECONDS.toMicros(result.getHistogram().getMaxValue()));
+      json.writeEndObject();
+      json.writeEndObject();
+    }
+    json.writeEndObject();
+
+    json.writeObjectFieldStart("propagation");
+    json.writeNumberField("matched", propagation.getMatched());
+    json.writeNumberField("lost", propagation.getLost());
+    json.writeNumberField("pending", propagation.getPending());
+    json.writeNumberField("outOfOrder", propagation.getOutOfOrder());
+    json.writeNumberField("unmatched", propagation.getUnmatched());
+    json.writeObjectFieldStart("latencyMicros");
+    json.writeNumberField("p50", propagation.getPercentileMicros(50));
+    json.writeNumberField("p90", propagation.getPercentileMicros(90));
+    json.writeNumberField("p99", propagation.getPercentileMicros(99));
+    json.writeNumberField("p999", propagation.getPercentileMicros(99.9));
+    json.writeNumberField("max", TimeUnit.NANOSECONDS.toMicros(propagation.getLatencies().getMaxValue()));
+    json.writeEndObject();
+    json.writeEndObject();
+
+    json.writeEndObject();
+  }
+
+  private static String version() {
+    String version = ScenarioRunner.class.getPackage().getImplementationVersion();
+    return version != null ? version : "dev";
+  }
+}
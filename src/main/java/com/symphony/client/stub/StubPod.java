@@ -0,0 +1,476 @@
+package com.symphony.client.stub;
+
+import com.symphony.client.presence.Presence;
+import com.symphony.client.presence.PresenceStatus;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the pod, session auth and key manager endpoints the client uses, so load runs and benchmarks
+ * can work without a shared environment.
+ *
+ * <p>Authentication hands out random tokens without checking certificates; pod calls without a known
+ * {@code sessionToken} header get a 401. Presence writes get a per-user increasing timestamp and are appended to the
+ * queue of every live feed; reading a feed drains its queue. A feed that is not read for {@code feedTtl} is discarded,
+ * so further reads get a 404 as they would from a pod. Created users get sequential ids, and a user name can only be
+ * taken once; reading the presence of a user that was neither created, seeded nor given a presence gets a 404. Every
+ * response can be delayed and a share of them replaced by a 503 to exercise the client's error handling.
+ */
+@Slf4j
+public class StubPod implements Closeable {
+  public static final long USER_ID = 9414568312000L;
+
+  private static final JsonFactory JSON = new JsonFactory();
+  private static final String SESSION_TOKEN = "sessionToken";
+  private static final String FEED_PREFIX = "/pod/v1/presence/feed/";
+  private static final String USER_PREFIX = "/pod/v3/user/";
+  private static final int DEFAULT_PAGE_SIZE = 1000;
+
+  private final StubPodConfig config;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+  private final ConcurrentNavigableMap<Long, Presence> presences = new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<String, Feed> feeds = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Long> userNames = new ConcurrentHashMap<>();
+  private final AtomicLong createdUsers = new AtomicLong();
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder injectedErrors = new LongAdder();
+  private final LongAdder droppedEvents = new LongAdder();
+
+  public StubPod() throws IOException {
+    this(new StubPodConfig());
+  }
+
+  public StubPod(StubPodConfig config) throws IOException {
+    this.config = config;
+    this.executor = Executors.newFixedThreadPool(config.getThreads(), runnable -> {
+      Thread thread = new Thread(runnable, "stub-pod");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server = HttpServer.create(new InetSocketAddress(config.getPort()), 1024);
+    this.server.setExecutor(executor);
+    this.server.createContext("/", this::handle);
+  }
+
+  public StubPod start() {
+    server.start();
+    log.info("Stub pod listening on {}", getUrl());
+    return this;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Base URL to use as pod, agent, session auth and key manager URL.
+   */
+  public String getUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  /**
+   * Sets {@code count} users with consecutive ids starting at {@code firstUserId} to {@code status}, without
+   * publishing feed events.
+   */
+  public void seed(long firstUserId, int count, PresenceStatus status) {
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < count; i++) {
+      presences.put(firstUserId + i, new Presence(firstUserId + i, status, now));
+    }
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public long getInjectedErrors() {
+    return injectedErrors.sum();
+  }
+
+  public long getDroppedEvents() {
+    return droppedEvents.sum();
+  }
+
+  public int getFeedCount() {
+    return feeds.size();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      requests.increment();
+      byte[] body = readBody(exchange);
+      delay();
+
+      if (config.getErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < config.getErrorRate()) {
+        injectedErrors.increment();
+        respond(exchange, 503, error(503, "Injected failure"));
+        return;
+      }
+
+      route(exchange, exchange.getRequestMethod(), exchange.getRequestURI().getPath(), body);
+    } catch (IllegalArgumentException e) {
+      respond(exchange, 400, error(400, e.getMessage()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      exchange.close();
+    } catch (RuntimeException e) {
+      log.error("Stub pod failed on {}", exchange.getRequestURI(), e);
+      respond(exchange, 500, error(500, String.valueOf(e.getMessage())));
+    }
+  }
+
+  private void route(HttpExchange exchange, String method, String path, byte[] body) throws IOException {
+    if ("/sessionauth/v1/authenticate".equals(path)) {
+      respond(exchange, 200, token("sessionToken", newSession()));
+      return;
+    }
+    if ("/keyauth/v1/authenticate".equals(path)) {
+      respond(exchange, 200, token("keyManagerToken", UUID.randomUUID().toString()));
+      return;
+    }
+
+    if (!sessions.contains(String.valueOf(exchange.getRequestHeaders().getFirst(SESSION_TOKEN)))) {
+      respond(exchange, 401, error(401, "Invalid session"));
+      return;
+    }
+
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+    if ("/pod/v2/sessioninfo".equals(path)) {
+      respond(exchange, 200, sessionInfo());
+    } else if ("/pod/v3/user/presence".equals(path) && "POST".equals(method)) {
+      respond(exchange, 200, presence(setPresence(body)));
+    } else if ("/pod/v2/users/presence".equals(path)) {
+      long lastUserId = Long.parseLong(query.getOrDefault("lastUserId", "0"));
+      int limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(DEFAULT_PAGE_SIZE)));
+      respond(exchange, 200, presences(presences.tailMap(lastUserId, false).values(), limit));
+    } else if (path.startsWith(USER_PREFIX) && path.endsWith("/presence")) {
+      long userId = Long.parseLong(path.substring(USER_PREFIX.length(), path.length() - "/presence".length()));
+      Presence presence = presences.get(userId);
+      if (presence == null && !isCreatedUser(userId)) {
+        respond(exchange, 404, error(404, "User not found"));
+      } else {
+        respond(exchange, 200, presence(presence != null ? presence : new Presence(userId, PresenceStatus.OFFLINE, 0)));
+      }
+    } else if ("/pod/v1/admin/user/create".equals(path) && "POST".equals(method)) {
+      createUser(exchange, body);
+    } else if ("/pod/v2/user".equals(path) && query.containsKey("username")) {
+      Long userId = userNames.get(query.get("username"));
+      if (userId == null) {
+        respond(exchange, 404, error(404, "User not found"));
+      } else {
+        respond(exchange, 200, userInfo(userId));
+      }
+    } else if ("/pod/v2/user".equals(path)) {
+      respond(exchange, 200, userInfo(Long.parseLong(query.get("uid"))));
+    } else if ((FEED_PREFIX + "create").equals(path)) {
+      String id = UUID.randomUUID().toString();
+      feeds.put(id, new Feed(config.getFeedCapacity()));
+      respond(exchange, 200, feedId(id));
+    } else if (path.startsWith(FEED_PREFIX) && path.endsWith("/read")) {
+      Feed feed = feeds.get(path.substring(FEED_PREFIX.length(), path.length() - "/read".length()));
+      if (feed == null) {
+        respond(exchange, 404, error(404, "Feed not found"));
+      } else {
+        respond(exchange, 200, presences(feed.drain(), Integer.MAX_VALUE));
+      }
+    } else {
+      respond(exchange, 404, error(404, "No stub for " + method + " " + path));
+    }
+  }
+
+  private String newSession() {
+    String token = UUID.randomUUID().toString();
+    sessions.add(token);
+    return token;
+  }
+
+  private void createUser(HttpExchange exchange, byte[] body) throws IOException {
+    String userName = null;
+    try (JsonParser parser = JSON.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("Expected a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        boolean attributes = "userAttributes".equals(parser.getCurrentName());
+        if (parser.nextToken() != JsonToken.START_OBJECT || !attributes) {
+          parser.skipChildren();
+          continue;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.getCurrentName();
+          parser.nextToken();
+          if ("userName".equals(field)) {
+            userName = parser.getValueAsString();
+          } else {
+            parser.skipChildren();
+          }
+        }
+      }
+    }
+    if (userName == null || userName.isEmpty()) {
+      respond(exchange, 400, error(400, "userAttributes.userName is required"));
+      return;
+    }
+    long userId = USER_ID + createdUsers.incrementAndGet();
+    if (userNames.putIfAbsent(userName, userId) != null) {
+      respond(exchange, 400, error(400, "User name " + userName + " already exists"));
+      return;
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeObjectFieldStart("userSystemInfo");
+      generator.writeNumberField("id", userId);
+      generator.writeStringField("status", "ENABLED");
+      generator.writeEndObject();
+      generator.writeObjectFieldStart("userAttributes");
+      generator.writeStringField("userName", userName);
+      generator.writeEndObject();
+      generator.writeEndObject();
+    }
+    respond(exchange, 200, out.toByteArray());
+  }
+
+  private boolean isCreatedUser(long userId) {
+    return userId > USER_ID && userId <= USER_ID + createdUsers.get();
+  }
+
+  private Presence setPresence(byte[] body) throws IOException {
+    long userId = 0;
+    PresenceStatus status = null;
+    try (JsonParser parser = JSON.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("Expected a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        if ("userId".equals(field)) {
+          userId = parser.getValueAsLong();
+        } else if ("category".equals(field)) {
+          status = PresenceStatus.fromCategory(parser.getValueAsString());
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    if (userId == 0 || status == null || status == PresenceStatus.UNKNOWN) {
+      throw new IllegalArgumentException("userId and a valid category are required");
+    }
+
+    PresenceStatus category = status;
+    long now = System.currentTimeMillis();
+    Presence presence = presences.compute(userId, (id, previous) ->
+        new Presence(id, category, previous == null ? now : Math.max(now, previous.getTimestamp() + 1)));
+    publish(presence, now);
+    return presence;
+  }
+
+  private void publish(Presence presence, long now) {
+    long expiredBefore = now - TimeUnit.SECONDS.toMillis(config.getFeedTtlSeconds());
+    for (Iterator<Feed> it = feeds.values().iterator(); it.hasNext(); ) {
+      Feed feed = it.next();
+      if (feed.lastRead < expiredBefore) {
+        it.remove();
+      } else if (!feed.add(presence)) {
+        droppedEvents.increment();
+      }
+    }
+  }
+
+  private void delay() throws InterruptedException {
+    long millis = config.getLatencyMillis();
+    if (config.getJitterMillis() > 0) {
+      millis += ThreadLocalRandom.current().nextLong(config.getJitterMillis() + 1);
+    }
+    if (millis > 0) {
+      Thread.sleep(millis);
+    }
+  }
+
+  private static byte[] readBody(HttpExchange exchange) throws IOException {
+    try (InputStream is = exchange.getRequestBody()) {
+      ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = is.read(buffer)) >= 0) {
+        body.write(buffer, 0, read);
+      }
+      return body.toByteArray();
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(code, body.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(body);
+    }
+  }
+
+  private static Map<String, String> parseQuery(String query) {
+    Map<String, String> params = new HashMap<>();
+    if (query != null) {
+      for (String pair : query.split("&")) {
+        int eq = pair.indexOf('=');
+        if (eq > 0) {
+          params.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+      }
+    }
+    return params;
+  }
+
+  private static byte[] presence(Presence presence) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(96);
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      writePresence(generator, presence);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] presences(Iterable<Presence> presences, int limit) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartArray();
+      int count = 0;
+      for (Iterator<Presence> it = presences.iterator(); it.hasNext() && count < limit; count++) {
+        writePresence(generator, it.next());
+      }
+      generator.writeEndArray();
+    }
+    return out.toByteArray();
+  }
+
+  private static void writePresence(JsonGenerator generator, Presence presence) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("category", presence.getStatus().name());
+    generator.writeNumberField("userId", presence.getUserId());
+    generator.writeNumberField("timestamp", presence.getTimestamp());
+    generator.writeEndObject();
+  }
+
+  private static byte[] token(String name, String token) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(96);
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeStringField("name", name);
+      generator.writeStringField("token", token);
+      generator.writeEndObject();
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] feedId(String id) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeStringField("id", id);
+      generator.writeEndObject();
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] sessionInfo() throws IOException {
+    return userInfo(USER_ID);
+  }
+
+  private static byte[] userInfo(long userId) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(160);
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeNumberField("id", userId);
+      generator.writeStringField("username", "stub.user." + userId);
+      generator.writeStringField("displayName", "Stub User " + userId);
+      generator.writeStringField("emailAddress", "stub.user." + userId + "@example.com");
+      generator.writeEndObject();
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] error(int code, String message) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(96);
+    try (JsonGenerator generator = JSON.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeNumberField("code", code);
+      generator.writeStringField("message", message);
+      generator.writeEndObject();
+    }
+    return out.toByteArray();
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    StubPod pod = new StubPod(StubPodConfig.fromProperties(System.getProperties())).start();
+    Runtime.getRuntime().addShutdownHook(new Thread(pod::close));
+    Thread.currentThread().join();
+  }
+
+  /**
+   * Pending events of one presence feed, bounded to {@code capacity} by dropping the oldest.
+   */
+  private static final class Feed {
+    private final int capacity;
+    private final ArrayDeque<Presence> events = new ArrayDeque<>();
+    private volatile long lastRead = System.currentTimeMillis();
+
+    private Feed(int capacity) {
+      this.capacity = capacity;
+    }
+
+    private synchronized boolean add(Presence presence) {
+      boolean kept = true;
+      if (events.size() >= capacity) {
+        events.pollFirst();
+        kept = false;
+      }
+      events.addLast(presence);
+      return kept;
+    }
+
+    private synchronized List<Presence> drain() {
+      lastRead = System.currentTimeMillis();
+      List<Presence> drained = new ArrayList<>(events);
+      events.clear();
+      return drained;
+    }
+  }
+}
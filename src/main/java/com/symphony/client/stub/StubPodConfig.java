@@ -0,0 +1,45 @@
+package com.symphony.client.stub;
+
+import lombok.Data;
+
+import java.util.Properties;
+
+/**
+ * Settings of a {@link StubPod}, read from properties prefixed with {@code stub.}:
+ *
+ * <pre>
+ * stub.port          port to listen on, 0 for an ephemeral one (default 0)
+ * stub.threads       request handling threads (default 64)
+ * stub.latency       delay added to every response, in milliseconds (default 0)
+ * stub.jitter        random extra delay of up to this many milliseconds (default 0)
+ * stub.errorRate     fraction of requests answered with 503, between 0 and 1 (default 0)
+ * stub.feedCapacity  events kept per feed; the oldest are dropped beyond that (default 10000)
+ * stub.feedTtl       seconds after which an unread feed is discarded (default 300)
+ * </pre>
+ */
+@Data
+public class StubPodConfig {
+  private int port;
+  private int threads = 64;
+  private long latencyMillis;
+  private long jitterMillis;
+  private double errorRate;
+  private int feedCapacity = 10000;
+  private long feedTtlSeconds = 300;
+
+  public static StubPodConfig fromProperties(Properties properties) {
+    StubPodConfig config = new StubPodConfig();
+    config.setPort(Integer.parseInt(properties.getProperty("stub.port", String.valueOf(config.port))));
+    config.setThreads(Integer.parseInt(properties.getProperty("stub.threads", String.valueOf(config.threads))));
+    config.setLatencyMillis(
+        Long.parseLong(properties.getProperty("stub.latency", String.valueOf(config.latencyMillis))));
+    config.setJitterMillis(Long.parseLong(properties.getProperty("stub.jitter", String.valueOf(config.jitterMillis))));
+    config.setErrorRate(
+        Double.parseDouble(properties.getProperty("stub.errorRate", String.valueOf(config.errorRate))));
+    config.setFeedCapacity(
+        Integer.parseInt(properties.getProperty("stub.feedCapacity", String.valueOf(config.feedCapacity))));
+    config.setFeedTtlSeconds(
+        Long.parseLong(properties.getProperty("stub.feedTtl", String.valueOf(config.feedTtlSeconds))));
+    return config;
+  }
+}
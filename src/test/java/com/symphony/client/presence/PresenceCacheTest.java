@@ -0,0 +1,146 @@
+package com.symphony.client.presence;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PresenceCacheTest {
+  private static final long LONG_TTL_MILLIS = 60000;
+  private static final int SMALL_TABLE_SLOTS = 16;
+
+  @Test
+  public void findsEveryUserSharingAHomeSlot() {
+    PresenceCache cache = new PresenceCache(8, LONG_TTL_MILLIS);
+    long[] userIds = collidingUserIds(4);
+    for (long userId : userIds) {
+      cache.put(new Presence(userId, PresenceStatus.AVAILABLE, 1000));
+    }
+
+    assertEquals(4, cache.size());
+    for (long userId : userIds) {
+      assertEquals(new Presence(userId, PresenceStatus.AVAILABLE, 1000), cache.get(userId));
+    }
+
+    // The probe for the last user has to walk past the tombstone left by the second one.
+    cache.invalidate(userIds[1]);
+    assertNull(cache.get(userIds[1]));
+    assertNotNull(cache.get(userIds[3]));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void updateAfterTombstoneReplacesExistingEntry() {
+    PresenceCache cache = new PresenceCache(8, LONG_TTL_MILLIS);
+    long[] userIds = collidingUserIds(2);
+    cache.put(new Presence(userIds[0], PresenceStatus.AVAILABLE, 1000));
+    cache.put(new Presence(userIds[1], PresenceStatus.AVAILABLE, 1000));
+    cache.invalidate(userIds[0]);
+
+    // The tombstone comes first on the probe path, but the update must land on the live entry behind it.
+    cache.put(new Presence(userIds[1], PresenceStatus.BUSY, 2000));
+    assertEquals(1, cache.size());
+    assertEquals(new Presence(userIds[1], PresenceStatus.BUSY, 2000), cache.get(userIds[1]));
+
+    cache.invalidate(userIds[1]);
+    assertNull(cache.get(userIds[1]));
+    assertEquals(0, cache.size());
+
+    // A user whose entry was invalidated is stored afresh, whatever its timestamp.
+    cache.put(new Presence(userIds[0], PresenceStatus.AWAY, 500));
+    assertEquals(new Presence(userIds[0], PresenceStatus.AWAY, 500), cache.get(userIds[0]));
+  }
+
+  @Test
+  public void reusesTombstonesUnderChurn() {
+    PresenceCache cache = new PresenceCache(4, LONG_TTL_MILLIS);
+    for (long userId = 1; userId <= 100000; userId++) {
+      cache.put(new Presence(userId, PresenceStatus.AVAILABLE, 1000));
+      assertNotNull(cache.get(userId));
+      cache.invalidate(userId);
+    }
+
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getEvictions());
+    cache.put(new Presence(7, PresenceStatus.BUSY, 2000));
+    assertEquals(new Presence(7, PresenceStatus.BUSY, 2000), cache.get(7));
+  }
+
+  @Test
+  public void evictsOneEntryWhenFull() {
+    PresenceCache cache = new PresenceCache(4, LONG_TTL_MILLIS);
+    for (long userId = 1; userId <= 5; userId++) {
+      cache.put(new Presence(userId, PresenceStatus.AVAILABLE, 1000));
+    }
+
+    assertEquals(4, cache.size());
+    assertEquals(1, cache.getEvictions());
+    assertNotNull(cache.get(5));
+    int present = 0;
+    for (long userId = 1; userId <= 5; userId++) {
+      present += cache.get(userId) == null ? 0 : 1;
+    }
+    assertEquals(4, present);
+  }
+
+  @Test
+  public void evictsExpiredEntriesFirst() throws InterruptedException {
+    PresenceCache cache = new PresenceCache(4, 50);
+    for (long userId = 1; userId <= 4; userId++) {
+      cache.put(new Presence(userId, PresenceStatus.AVAILABLE, 1000));
+    }
+    Thread.sleep(100);
+
+    cache.put(new Presence(5, PresenceStatus.AVAILABLE, 1000));
+    assertEquals(1, cache.size());
+    assertEquals(4, cache.getEvictions());
+    assertNotNull(cache.get(5));
+  }
+
+  @Test
+  public void expiresEntriesAfterTtl() throws InterruptedException {
+    PresenceCache cache = new PresenceCache(8, 50);
+    cache.put(new Presence(1, PresenceStatus.AVAILABLE, 1000));
+    assertNotNull(cache.get(1));
+    assertEquals(1, cache.getHits());
+
+    Thread.sleep(100);
+    assertNull(cache.get(1));
+    assertEquals(1, cache.getMisses());
+
+    cache.put(new Presence(1, PresenceStatus.BUSY, 2000));
+    assertEquals(new Presence(1, PresenceStatus.BUSY, 2000), cache.get(1));
+  }
+
+  @Test
+  public void keepsNewerPresence() {
+    PresenceCache cache = new PresenceCache(8, LONG_TTL_MILLIS);
+    cache.put(new Presence(1, PresenceStatus.BUSY, 2000));
+
+    cache.put(new Presence(1, PresenceStatus.AVAILABLE, 1000));
+    assertEquals(new Presence(1, PresenceStatus.BUSY, 2000), cache.get(1));
+
+    cache.onPresence(new Presence(1, PresenceStatus.AWAY, 2000));
+    assertEquals(new Presence(1, PresenceStatus.AWAY, 2000), cache.get(1));
+
+    cache.onPresence(new Presence(1, PresenceStatus.OFFLINE, 3000));
+    assertEquals(new Presence(1, PresenceStatus.OFFLINE, 3000), cache.get(1));
+    assertEquals(1, cache.size());
+  }
+
+  /**
+   * Picks user ids whose hashes start probing at the same slot of the smallest table.
+   */
+  private static long[] collidingUserIds(int count) {
+    long[] userIds = new long[count];
+    int slot = PresenceCache.hash(1) & (SMALL_TABLE_SLOTS - 1);
+    int found = 0;
+    for (long userId = 1; found < count; userId++) {
+      if ((PresenceCache.hash(userId) & (SMALL_TABLE_SLOTS - 1)) == slot) {
+        userIds[found++] = userId;
+      }
+    }
+    return userIds;
+  }
+}
@@ -0,0 +1,144 @@
+package com.symphony.client.presence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class PresenceJournalTest {
+  private static final int SEGMENT_RECORDS = 4;
+
+  private Path directory;
+
+  @Before
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("presence-journal");
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    for (Path file : segmentFiles()) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void rollsIntoNewSegmentsAndReplaysInAppendOrder() throws IOException {
+    List<Presence> written = presences(10);
+    try (PresenceJournal journal = new PresenceJournal(directory, SEGMENT_RECORDS)) {
+      for (Presence presence : written) {
+        journal.onPresence(presence);
+      }
+      assertEquals(3, segmentFiles().size());
+      assertEquals(written, replay(journal));
+    }
+  }
+
+  @Test
+  public void reopenedJournalReplaysAndAppendsAfterExistingRecords() throws IOException {
+    List<Presence> written = presences(6);
+    try (PresenceJournal journal = new PresenceJournal(directory, SEGMENT_RECORDS)) {
+      for (Presence presence : written.subList(0, 5)) {
+        journal.onPresence(presence);
+      }
+    }
+    try (PresenceJournal journal = new PresenceJournal(directory, SEGMENT_RECORDS)) {
+      assertEquals(written.subList(0, 5), replay(journal));
+      journal.onPresence(written.get(5));
+      assertEquals(written, replay(journal));
+    }
+  }
+
+  @Test
+  public void tornTailRecordIsDroppedAndOverwritten() throws IOException {
+    List<Presence> written = presences(3);
+    try (PresenceJournal journal = new PresenceJournal(directory, SEGMENT_RECORDS)) {
+      for (Presence presence : written) {
+        journal.onPresence(presence);
+      }
+    }
+
+    // A crash half way through the fourth record leaves its user id and timestamp but no status or check word.
+    Path segment = segmentFiles().get(0);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      ByteBuffer torn = ByteBuffer.allocate(16);
+      torn.putLong(99).putLong(99).flip();
+      channel.write(torn, 3L * PresenceJournal.RECORD_SIZE);
+    }
+
+    Presence next = new Presence(4, PresenceStatus.BUSY, 1004);
+    try (PresenceJournal journal = new PresenceJournal(directory, SEGMENT_RECORDS)) {
+      assertEquals(written, replay(journal));
+      journal.onPresence(next);
+    }
+    try (PresenceJournal journal = new PresenceJournal(directory, SEGMENT_RECORDS)) {
+      List<Presence> expected = new ArrayList<>(written);
+      expected.add(next);
+      assertEquals(expected, replay(journal));
+    }
+  }
+
+  @Test
+  public void compactionKeepsLatestRecordPerUser() throws IOException {
+    try (PresenceJournal journal = new PresenceJournal(directory, SEGMENT_RECORDS)) {
+      for (int i = 0; i < 9; i++) {
+        journal.append(i % 3, PresenceStatus.values()[i], 1000 + i);
+      }
+      assertEquals(3, segmentFiles().size());
+
+      assertEquals(5, journal.compact());
+      assertEquals(2, segmentFiles().size());
+
+      Map<Long, Presence> latest = new HashMap<>();
+      for (Presence presence : replay(journal)) {
+        latest.put(presence.getUserId(), presence);
+      }
+      assertEquals(3, latest.size());
+      assertEquals(new Presence(0, PresenceStatus.values()[6], 1006), latest.get(0L));
+      assertEquals(new Presence(1, PresenceStatus.values()[7], 1007), latest.get(1L));
+      assertEquals(new Presence(2, PresenceStatus.values()[8], 1008), latest.get(2L));
+      assertEquals(4, journal.replay(presence -> { }));
+    }
+  }
+
+  private List<Presence> replay(PresenceJournal journal) throws IOException {
+    List<Presence> replayed = new ArrayList<>();
+    journal.replay(replayed::add);
+    return replayed;
+  }
+
+  private static List<Presence> presences(int count) {
+    PresenceStatus[] statuses = PresenceStatus.values();
+    List<Presence> presences = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      presences.add(new Presence(i, statuses[1 + i % (statuses.length - 1)], 1000 + i));
+    }
+    return presences;
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    }
+    Collections.sort(files);
+    return files;
+  }
+}
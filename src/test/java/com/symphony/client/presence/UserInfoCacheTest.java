@@ -0,0 +1,150 @@
+package com.symphony.client.presence;
+
+import com.symphony.client.metrics.CacheMetrics;
+import com.symphony.client.metrics.ClientMetrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UserInfoCacheTest {
+  private static final long LONG_TTL_MILLIS = 60000;
+
+  private final CacheMetrics metrics = new ClientMetrics().cache("userInfo");
+  private final FakeLoader loader = new FakeLoader();
+
+  @Test
+  public void evictsLeastRecentlyUsedUser() {
+    UserInfoCache cache = new UserInfoCache(loader, metrics, 2, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+    cache.get(1).join();
+    cache.get(2).join();
+    cache.get(1).join();
+    cache.get(3).join();
+
+    assertEquals(2, cache.size());
+    assertEquals(1, metrics.getEvictions());
+    assertEquals(info(1), cache.getIfPresent(1));
+    assertNull(cache.getIfPresent(2));
+    assertEquals(info(3), cache.getIfPresent(3));
+  }
+
+  @Test
+  public void cachesUnknownUsersForNegativeTtl() throws InterruptedException {
+    loader.unknown.add(7L);
+    UserInfoCache cache = new UserInfoCache(loader, metrics, 10, LONG_TTL_MILLIS, 50);
+
+    assertNull(cache.get(7).join());
+    assertNull(cache.get(7).join());
+    assertEquals(1, loader.calls(7));
+
+    Thread.sleep(100);
+    assertNull(cache.get(7).join());
+    assertEquals(2, loader.calls(7));
+  }
+
+  @Test
+  public void reloadsInBackgroundNearExpiry() throws InterruptedException {
+    UserInfoCache cache = new UserInfoCache(loader, metrics, 10, 1000, 1000);
+    JsonNode first = cache.get(1).join();
+    Thread.sleep(800);
+
+    loader.manual = true;
+    assertSame(first, cache.get(1).join());
+    assertEquals(2, loader.calls(1));
+    assertEquals(1, metrics.getRefreshes());
+
+    assertSame(first, cache.get(1).join());
+    assertEquals(2, loader.calls(1));
+
+    JsonNode reloaded = info(1);
+    loader.complete(1, reloaded);
+    assertSame(reloaded, cache.getIfPresent(1));
+  }
+
+  @Test
+  public void concurrentMissesShareOneLoad() {
+    loader.manual = true;
+    UserInfoCache cache = new UserInfoCache(loader, metrics, 10, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+    CompletableFuture<JsonNode> first = cache.get(1);
+    CompletableFuture<JsonNode> second = cache.get(1);
+
+    assertSame(first, second);
+    assertEquals(1, loader.calls(1));
+    assertFalse(first.isDone());
+
+    loader.complete(1, info(1));
+    assertEquals(info(1), second.join());
+    assertEquals(2, metrics.getMisses());
+  }
+
+  @Test
+  public void failedLoadIsNotCached() {
+    loader.manual = true;
+    UserInfoCache cache = new UserInfoCache(loader, metrics, 10, LONG_TTL_MILLIS, LONG_TTL_MILLIS);
+    CompletableFuture<JsonNode> failed = cache.get(1);
+    loader.fail(1, new IllegalStateException("getUserInfoById returned code 500"));
+
+    assertTrue(failed.isCompletedExceptionally());
+    assertEquals(1, metrics.getLoadFailures());
+    assertEquals(0, cache.size());
+
+    CompletableFuture<JsonNode> retried = cache.get(1);
+    loader.complete(1, info(1));
+    assertEquals(info(1), retried.join());
+  }
+
+  private static JsonNode info(long userId) {
+    return JsonNodeFactory.instance.objectNode().put("id", userId).put("displayName", "User " + userId);
+  }
+
+  /**
+   * Answers immediately unless {@code manual} is set, in which case loads wait for {@link #complete} or
+   * {@link #fail}.
+   */
+  private static class FakeLoader implements UserInfoCache.Loader {
+    private final Set<Long> unknown = new HashSet<>();
+    private final Map<Long, List<CompletableFuture<JsonNode>>> loads = new HashMap<>();
+    private volatile boolean manual;
+
+    @Override
+    public synchronized CompletableFuture<JsonNode> load(long userId) {
+      CompletableFuture<JsonNode> load = new CompletableFuture<>();
+      loads.computeIfAbsent(userId, id -> new ArrayList<>()).add(load);
+      if (!manual) {
+        load.complete(unknown.contains(userId) ? null : info(userId));
+      }
+      return load;
+    }
+
+    synchronized int calls(long userId) {
+      return loads.getOrDefault(userId, new ArrayList<>()).size();
+    }
+
+    void complete(long userId, JsonNode value) {
+      last(userId).complete(value);
+    }
+
+    void fail(long userId, Throwable failure) {
+      last(userId).completeExceptionally(failure);
+    }
+
+    private synchronized CompletableFuture<JsonNode> last(long userId) {
+      List<CompletableFuture<JsonNode>> calls = loads.get(userId);
+      return calls.get(calls.size() - 1);
+    }
+  }
+}
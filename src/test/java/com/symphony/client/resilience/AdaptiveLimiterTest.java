@@ -0,0 +1,115 @@
+package com.symphony.client.resilience;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimiterTest {
+
+  @Test
+  public void increasesByOneOverLimitWhileSaturated() throws InterruptedException {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(config(2, 1, 3, 0.5));
+
+    // Of each pair only the first release sees the window at least half used: 2 -> 2.5 -> 2.9 -> 3.24
+    for (int round = 0; round < 2; round++) {
+      releasePair(limiter);
+      assertEquals(2, limiter.getLimit());
+    }
+    releasePair(limiter);
+    assertEquals(3, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+
+    for (int round = 0; round < 20; round++) {
+      releasePair(limiter);
+    }
+    assertEquals(3, limiter.getLimit());
+  }
+
+  @Test
+  public void doesNotIncreaseWhileMostlyIdle() throws InterruptedException {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(config(10, 1, 200, 0.5));
+    for (int i = 0; i < 100; i++) {
+      limiter.release(limiter.acquire(), false);
+    }
+    assertEquals(10, limiter.getLimit());
+  }
+
+  @Test
+  public void decreasesOncePerWindow() throws InterruptedException {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(config(10, 1, 200, 0.5));
+    long[] starts = new long[4];
+    for (int i = 0; i < starts.length; i++) {
+      starts[i] = limiter.acquire();
+    }
+
+    // All four calls started before the first decrease, so they shrink the limit once between them.
+    for (long start : starts) {
+      limiter.release(start, true);
+    }
+    assertEquals(5, limiter.getLimit());
+
+    limiter.release(limiter.acquire(), true);
+    assertEquals(2, limiter.getLimit());
+
+    for (int i = 0; i < 5; i++) {
+      limiter.release(limiter.acquire(), true);
+    }
+    assertEquals(1, limiter.getLimit());
+  }
+
+  @Test
+  public void treatsSlowCallsAsOverload() throws InterruptedException {
+    ResilienceConfig config = config(10, 1, 200, 0.5);
+    config.setLatencyTargetMillis(1);
+    AdaptiveLimiter limiter = new AdaptiveLimiter(config);
+
+    long start = limiter.acquire();
+    Thread.sleep(10);
+    limiter.release(start, false);
+    assertEquals(5, limiter.getLimit());
+  }
+
+  @Test
+  public void blocksAtLimitUntilReleased() throws InterruptedException {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(config(1, 1, 1, 0.5));
+    limiter.acquire();
+
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiter = new Thread(() -> {
+      try {
+        limiter.acquire();
+        acquired.countDown();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    waiter.start();
+
+    assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+    limiter.cancel();
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    waiter.join();
+    assertEquals(1, limiter.getInFlight());
+  }
+
+  private static void releasePair(AdaptiveLimiter limiter) throws InterruptedException {
+    long first = limiter.acquire();
+    long second = limiter.acquire();
+    limiter.release(first, false);
+    limiter.release(second, false);
+  }
+
+  private static ResilienceConfig config(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+    ResilienceConfig config = new ResilienceConfig();
+    config.setInitialLimit(initialLimit);
+    config.setMinLimit(minLimit);
+    config.setMaxLimit(maxLimit);
+    config.setBackoffRatio(backoffRatio);
+    return config;
+  }
+}